@@ -0,0 +1,102 @@
+package pw.mihou.rosedb.benchmarks;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import pw.mihou.rosedb.RoseQuery;
+import pw.mihou.rosedb.entities.AggregatedCollection;
+import pw.mihou.rosedb.enums.FilterCasing;
+import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.filters.DocumentFilter;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building an {@link AggregatedCollection} from an aggregation, both from the raw string
+ * which is what the driver does and through the filter constructors that take a {@link JSONObject}.
+ * The aggregation is built once per trial, the parsing of it into a {@link JSONObject} is not measured
+ * for the filter constructors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AggregationBenchmark {
+
+    private static final String COLLECTION = "users";
+
+    @Param({"1000", "100000", "1000000"})
+    public int documents;
+
+    private String aggregation;
+    private JSONObject collection;
+    private DocumentFilter query;
+    private ForkJoinPool single;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JSONObject items = new JSONObject();
+        for (int i = 0; i < documents; i++) {
+            items.put(Integer.toString(i), new JSONObject()
+                    .put("name", "User " + i)
+                    .put("age", i % 100)
+                    .put("balance", i * 1.5)
+                    .put("created", 1_600_000_000_000L + i)
+                    .put("active", i % 2 == 0)
+                    .toString());
+        }
+
+        aggregation = new JSONObject().put(COLLECTION, items).toString();
+        collection = new JSONObject(aggregation).getJSONObject(COLLECTION);
+        query = RoseQuery.where("age").greaterThan(50).and(RoseQuery.where("active").equalTo(true)).compile();
+        single = new ForkJoinPool(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        single.shutdown();
+    }
+
+    @Benchmark
+    public AggregatedCollection parallel() {
+        return new AggregatedCollection(COLLECTION, aggregation, DocumentFilter.all(), ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public AggregatedCollection sequential() {
+        return new AggregatedCollection(COLLECTION, aggregation, DocumentFilter.all(), single);
+    }
+
+    @Benchmark
+    public AggregatedCollection query() {
+        return new AggregatedCollection(COLLECTION, aggregation, query, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public AggregatedCollection filterString() {
+        return new AggregatedCollection(COLLECTION, collection, "name", "user 500", FilterCasing.IGNORE_CASING);
+    }
+
+    @Benchmark
+    public AggregatedCollection filterInt() {
+        return new AggregatedCollection(COLLECTION, collection, "age", 50, NumberFilter.GREATER_THAN);
+    }
+
+    @Benchmark
+    public AggregatedCollection filterLong() {
+        return new AggregatedCollection(COLLECTION, collection, "created", 1_600_000_000_500L, NumberFilter.LESS_THAN);
+    }
+
+    @Benchmark
+    public AggregatedCollection filterDouble() {
+        return new AggregatedCollection(COLLECTION, collection, "balance", 750.0, NumberFilter.GREATER_OR_EQUALS);
+    }
+
+    @Benchmark
+    public AggregatedCollection filterGeneric() {
+        return new AggregatedCollection(COLLECTION, collection, "active", true);
+    }
+
+}
@@ -0,0 +1,74 @@
+package pw.mihou.rosedb.benchmarks;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.payloads.RosePayload;
+import pw.mihou.rosedb.utility.PayloadReader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a reply of the server into a {@link RosePayload} and a document into a
+ * {@link RoseItem}, parsing the whole frame into a {@link JSONObject} is measured as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodingBenchmark {
+
+    private String frame;
+    private String document;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        document = new JSONObject()
+                .put("name", "Rose")
+                .put("age", 18)
+                .put("balance", 1024.5)
+                .put("active", true)
+                .put("tags", new String[]{"driver", "benchmark"})
+                .toString();
+
+        frame = new JSONObject().put("replyTo", "1a2b").put("kode", 1).put("response", document).toString();
+    }
+
+    @Benchmark
+    public RosePayload payload() {
+        return PayloadReader.read(frame, 0);
+    }
+
+    @Benchmark
+    public JSONObject payloadAsJSONObject() {
+        return PayloadReader.read(frame, 0).asJSONObject();
+    }
+
+    @Benchmark
+    public JSONObject itemAsJSONObject() {
+        return new RoseItem(document).asJSONObject();
+    }
+
+    @Benchmark
+    public User itemAsClass() {
+        return new RoseItem(document).as(User.class);
+    }
+
+    @Benchmark
+    public JSONObject baseline() {
+        return new JSONObject(frame);
+    }
+
+    public static class User {
+
+        public String name;
+        public int age;
+        public double balance;
+        public boolean active;
+        public String[] tags;
+
+    }
+
+}
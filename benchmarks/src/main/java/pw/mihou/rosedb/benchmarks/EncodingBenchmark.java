@@ -0,0 +1,52 @@
+package pw.mihou.rosedb.benchmarks;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import pw.mihou.rosedb.io.Request;
+import pw.mihou.rosedb.io.RequestEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding requests into frames, run it with -prof gc to see the allocation rate
+ * of each request, building the same frame with a {@link JSONObject} is measured as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private static final String UNIQUE = "1a2b";
+
+    private final List<String> keys = Arrays.asList("name", "age", "active");
+    private final List<Object> values = Arrays.asList("Rose", 18, true);
+
+    @Benchmark
+    public String get() {
+        return RequestEncoder.encode(new Request("get", "benchmarks").collection("users").identifier("seed"), UNIQUE);
+    }
+
+    @Benchmark
+    public String update() {
+        return RequestEncoder.encode(new Request("update", "benchmarks").collection("users").identifier("seed")
+                .key("age").value(19), UNIQUE);
+    }
+
+    @Benchmark
+    public String updateMap() {
+        return RequestEncoder.encode(new Request("update", "benchmarks").collection("users").identifier("seed")
+                .key(keys).value(values), UNIQUE);
+    }
+
+    @Benchmark
+    public String baseline() {
+        return new JSONObject().put("method", "update").put("database", "benchmarks").put("collection", "users")
+                .put("identifier", "seed").put("key", "age").put("value", 19).put("unique", UNIQUE).toString();
+    }
+
+}
@@ -0,0 +1,73 @@
+package pw.mihou.rosedb.benchmarks;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import pw.mihou.rosedb.RoseBuilder;
+import pw.mihou.rosedb.RoseDriver;
+import pw.mihou.rosedb.RoseSyncDriver;
+import pw.mihou.rosedb.payloads.RosePayload;
+import pw.mihou.rosedb.stub.RoseStubServer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the full round trip of a request through the driver against the in-process stub,
+ * that is encoding, the write, the reply and decoding. Run it with more threads (-t) to measure
+ * the throughput of the driver under concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    private static final String DATABASE = "benchmarks";
+    private static final String COLLECTION = "users";
+
+    private final AtomicLong identifiers = new AtomicLong();
+    private RoseStubServer server;
+    private RoseDriver driver;
+    private RoseSyncDriver sync;
+    private JSONObject document;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = new RoseStubServer();
+        int port = server.startAndWait();
+
+        driver = new RoseBuilder().build("127.0.0.1", port, "benchmarks");
+        sync = driver.sync();
+        document = new JSONObject().put("name", "Rose").put("age", 18).put("active", true);
+        driver.add(DATABASE, COLLECTION, "seed", document).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        driver.shutdown();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public RosePayload get() {
+        return driver.get(DATABASE, COLLECTION, "seed").join();
+    }
+
+    @Benchmark
+    public RosePayload getSync() {
+        return sync.get(DATABASE, COLLECTION, "seed");
+    }
+
+    @Benchmark
+    public RosePayload add() {
+        return driver.add(DATABASE, COLLECTION, Long.toString(identifiers.incrementAndGet() & 1023), document).join();
+    }
+
+    @Benchmark
+    public RosePayload update() {
+        return driver.update(DATABASE, COLLECTION, "seed", "age", 19).join();
+    }
+
+}
@@ -0,0 +1,106 @@
+package pw.mihou.rosedb;
+
+import org.json.JSONObject;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface RoseBatch {
+
+    /**
+     * Adds a retrieval of data to the batch.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the name or identifier of the data.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch get(String database, String collection, String identifier);
+
+    /**
+     * Adds the addition of an item to the batch.
+     * @param database the database to place the data.
+     * @param collection the collection to place the data.
+     * @param identifier the identifier name of the data.
+     * @param document the document.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch add(String database, String collection, String identifier, JSONObject document);
+
+    /**
+     * Adds the addition of an item to the batch.
+     * @param database the database to place the data.
+     * @param collection the collection to place the data.
+     * @param identifier the identifier name of the data.
+     * @param document the object to add.
+     * @return RoseBatch for chain-calling methods.
+     */
+    <T> RoseBatch add(String database, String collection, String identifier, T document);
+
+    /**
+     * Adds the update of a key-value item to the batch.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key that will be paired with the value.
+     * @param value the value that will be paired with the key.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch update(String database, String collection, String identifier, String key, Object value);
+
+    /**
+     * Adds the update of multiple key-value items to the batch.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param map a map of key-value pairs.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch update(String database, String collection, String identifier, Map<String, ?> map);
+
+    /**
+     * Adds the removal of an item to the batch.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data to be removed.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch remove(String database, String collection, String identifier);
+
+    /**
+     * Adds the removal of a key (and value) from an item to the batch.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key that will be removed.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch remove(String database, String collection, String identifier, String key);
+
+    /**
+     * Adds the removal of keys (and values) from an item to the batch.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param keys the keys that will be removed.
+     * @return RoseBatch for chain-calling methods.
+     */
+    RoseBatch remove(String database, String collection, String identifier, Collection<String> keys);
+
+    /**
+     * Gets the amount of requests collected by this batch.
+     * @return the size of the batch.
+     */
+    int size();
+
+    /**
+     * Sends every request of the batch in a single round trip, unlike the methods
+     * of RoseDriver a request that the server fails to fulfill does not fail the
+     * entire batch, check the kode of its payload instead.
+     * @return the payload of each request, in the order the requests were added.
+     */
+    CompletableFuture<List<RosePayload>> execute();
+
+}
@@ -1,10 +1,19 @@
 package pw.mihou.rosedb;
 
+import pw.mihou.rosedb.enums.RejectionPolicy;
+import pw.mihou.rosedb.enums.ReplayPolicy;
+import pw.mihou.rosedb.enums.Routing;
 import pw.mihou.rosedb.exceptions.FailedConnectionException;
 import pw.mihou.rosedb.impl.RoseDriverImpl;
+import pw.mihou.rosedb.io.Scheduler;
+import pw.mihou.rosedb.io.VirtualThreads;
+import pw.mihou.rosedb.metrics.RoseMetrics;
+import pw.mihou.rosedb.tracing.RequestTracer;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 public class RoseBuilder {
@@ -12,6 +21,26 @@ public class RoseBuilder {
     private final String format = "ws://%s:%d";
     private int timeout = 5;
     private TimeUnit unit = TimeUnit.SECONDS;
+    private long requestTimeout = TimeUnit.SECONDS.toNanos(5);
+    private long aggregateTimeout = TimeUnit.SECONDS.toNanos(30);
+    private int connections = 1;
+    private Routing routing = Routing.LEAST_IN_FLIGHT;
+    private int maxInFlight = 1024;
+    private int queueSize = 8192;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    private long queueTimeout = TimeUnit.SECONDS.toNanos(30);
+    private ReplayPolicy replayPolicy = ReplayPolicy.IDEMPOTENT;
+    private boolean batching = true;
+    private long autoBatchingWindow = 0;
+    private int autoBatchingSize = 1;
+    private long cacheMaximumSize = 0;
+    private long cacheMaximumWeight = 0;
+    private long cacheExpireAfterWrite = 0;
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+    private int listenerQueueSize = 0;
+    private Executor executor = Scheduler.executorService;
+    private RoseMetrics metrics = RoseMetrics.NOOP;
+    private RequestTracer tracer = RequestTracer.NOOP;
 
     public RoseBuilder setTimeout(int timeout){
         this.timeout = timeout;
@@ -23,12 +52,387 @@ public class RoseBuilder {
         return this;
     }
 
+    /**
+     * Sets how long the server has to reply to a request, counting from when the request is made
+     * but without the time spent waiting for a lost connection to come back, before the request fails with a {@link pw.mihou.rosedb.exceptions.RequestTimeoutException}, this is the
+     * default of every request except for aggregations and filters.
+     * The deadline of a single call can be changed through {@link RoseDriver#withTimeout(long, TimeUnit)}.
+     * @param requestTimeout the deadline of requests, defaults to 5 seconds.
+     * @param unit the unit of the deadline.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setRequestTimeout(long requestTimeout, TimeUnit unit){
+        if (requestTimeout <= 0)
+            throw new IllegalArgumentException("The timeout of the requests must be positive.");
+
+        this.requestTimeout = unit.toNanos(requestTimeout);
+        return this;
+    }
+
+    /**
+     * Sets how long the server has to reply to an aggregation, counting from when the aggregation is made,
+     * before the aggregation fails, this applies to filters as well since they aggregate on the server.
+     * @param aggregateTimeout the deadline of aggregations, defaults to 30 seconds.
+     * @param unit the unit of the deadline.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setAggregateTimeout(long aggregateTimeout, TimeUnit unit){
+        if (aggregateTimeout <= 0)
+            throw new IllegalArgumentException("The timeout of the aggregations must be positive.");
+
+        this.aggregateTimeout = unit.toNanos(aggregateTimeout);
+        return this;
+    }
+
+    /**
+     * Sets the amount of connections the driver will open to the server,
+     * each connection has its own read thread and reconnects on its own.
+     * @param connections the amount of connections, defaults to 1.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setConnections(int connections){
+        if (connections < 1)
+            throw new IllegalArgumentException("The driver needs at least one connection.");
+
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * Sets how requests are spread across the connections of the driver.
+     * @param routing the routing strategy, defaults to LEAST_IN_FLIGHT.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setRouting(Routing routing){
+        this.routing = routing;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of requests that may wait for a reply on a single
+     * connection, requests beyond that wait in the queue until room frees up.
+     * @param maxInFlight the maximum amount of requests in flight per connection, defaults to 1024.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setMaxInFlight(int maxInFlight){
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("The maximum amount of requests in flight must be at least 1.");
+
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of requests that may wait in the queue
+     * once every connection has reached its maximum amount of requests in flight.
+     * @param queueSize the size of the queue, defaults to 8192.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setQueueSize(int queueSize){
+        if (queueSize < 1)
+            throw new IllegalArgumentException("The queue must be able to hold at least one request.");
+
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * Sets what happens to requests that arrive while the queue is full, ABORT fails
+     * the request immediately with a RejectedRequestException without blocking while
+     * BLOCK makes the calling thread wait until there is room in the queue.
+     * @param rejectionPolicy the rejection policy, defaults to ABORT.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setRejectionPolicy(RejectionPolicy rejectionPolicy){
+        this.rejectionPolicy = rejectionPolicy;
+        return this;
+    }
+
+    /**
+     * Sets how long a request may wait in the queue before it fails with a FailedConnectionException,
+     * this mostly matters for requests that are made while the driver is disconnected since those
+     * wait in the queue until the connection is back. The deadline of a request is paused for as long
+     * as it waits for the connection to come back, that wait is only bounded by this timeout and the
+     * deadline carries on with whatever was left of it once the request is written.
+     * @param queueTimeout the maximum time a request waits in the queue, 0 to wait for as long as it takes, defaults to 30 seconds.
+     * @param unit the unit of the timeout.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setQueueTimeout(long queueTimeout, TimeUnit unit){
+        if (queueTimeout < 0)
+            throw new IllegalArgumentException("The timeout of the queue cannot be negative.");
+
+        this.queueTimeout = unit.toNanos(queueTimeout);
+        return this;
+    }
+
+    /**
+     * Sets which requests are written again once the connection is back when their connection
+     * was lost before the server replied to them. READS only replays get and aggregate requests,
+     * IDEMPOTENT also replays add and update requests since writing the same values twice has
+     * the same result while NONE fails every one of them. Reverts, deletes and drops are never
+     * replayed and neither are batches that carry one of them.
+     * @param replayPolicy the replay policy, defaults to IDEMPOTENT.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setReplayPolicy(ReplayPolicy replayPolicy){
+        this.replayPolicy = replayPolicy;
+        return this;
+    }
+
+    /**
+     * Sets whether batches are sent to the server as a single frame, the driver falls back
+     * to pipelining the requests of a batch on its own once the server rejects the method
+     * or leaves the first batch without a reply. A batch that was rejected is pipelined right
+     * away while a batch without a reply fails with its deadline since the server may have
+     * applied it, disabling this skips that first attempt.
+     * @param batching whether to send batches as a single frame, defaults to true.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setBatching(boolean batching){
+        this.batching = batching;
+        return this;
+    }
+
+    /**
+     * Enables the coalescing of concurrent writes, every add and update that is made within
+     * the window is sent together with the others in a single batch while each of them still
+     * receives its own reply. A batch is sent early once it reaches the maximum amount of writes.
+     * @param window how long a write may wait for others to join its batch, e.g. 200 microseconds.
+     * @param unit the unit of the window.
+     * @param maxOperations the maximum amount of writes in a single batch.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setAutoBatching(long window, TimeUnit unit, int maxOperations){
+        if (window < 0 || maxOperations < 1)
+            throw new IllegalArgumentException("The window cannot be negative and a batch needs at least one write.");
+
+        this.autoBatchingWindow = unit.toNanos(window);
+        this.autoBatchingSize = maxOperations;
+        return this;
+    }
+
+    /**
+     * Enables the near cache which answers repeated retrievals of the same item without a round trip,
+     * the cache evicts its least recently used items once it is full and the items that this driver
+     * modifies, removes or reverts are removed from the cache automatically.
+     * @param maximumSize the maximum amount of cached items.
+     * @param expireAfterWrite how long an item stays cached, 0 to keep items until they are evicted.
+     * @param unit the unit of the expiry.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setCache(long maximumSize, long expireAfterWrite, TimeUnit unit){
+        if (maximumSize < 1 || expireAfterWrite < 0)
+            throw new IllegalArgumentException("The cache must be able to hold at least one item and the expiry cannot be negative.");
+
+        this.cacheMaximumSize = maximumSize;
+        this.cacheExpireAfterWrite = unit.toNanos(expireAfterWrite);
+        return this;
+    }
+
+    /**
+     * Bounds the near cache by the total length of the cached responses on top
+     * of the amount of items, this has no effect unless the near cache is enabled.
+     * @param maximumWeight the maximum total length of the cached responses.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setCacheMaximumWeight(long maximumWeight){
+        if (maximumWeight < 1)
+            throw new IllegalArgumentException("The maximum weight of the cache must be at least 1.");
+
+        this.cacheMaximumWeight = maximumWeight;
+        return this;
+    }
+
+    /**
+     * Sets the pool that aggregations and filters decode their documents on, collections are
+     * processed in parallel with each other and large collections are split into ranges of
+     * documents, this defaults to the common pool.
+     * @param pool the pool to use.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setForkJoinPool(ForkJoinPool pool){
+        if (pool == null)
+            throw new IllegalArgumentException("The fork join pool cannot be null.");
+
+        this.forkJoinPool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the executor that replies are decoded on and that the futures of the driver are completed on,
+     * this defaults to a pool that has as many threads as there are processors. Callbacks that run on the
+     * default pool should never block on other requests of the driver since that can leave no thread
+     * to complete them.
+     * @param executor the executor to use.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setExecutor(Executor executor){
+        if (executor == null)
+            throw new IllegalArgumentException("The executor cannot be null.");
+
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Decodes every reply and completes every future of the driver on a virtual thread of its own,
+     * blocking inside of callbacks is then cheap. Virtual threads are only available on Java 21 and above.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setVirtualThreads(){
+        if (!VirtualThreads.isSupported())
+            throw new IllegalArgumentException("Virtual threads require Java 21 or above.");
+
+        this.executor = VirtualThreads.newExecutor("RoseDB - Virtual");
+        return this;
+    }
+
+    /**
+     * Runs the listeners on a dedicated thread instead of the thread that reads the replies
+     * from the server, a slow listener then never delays the replies of requests. Events are
+     * dropped once the queue of the dedicated thread is full.
+     * @param queueSize the maximum amount of events waiting for the listeners.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setAsyncListeners(int queueSize){
+        if (queueSize < 1)
+            throw new IllegalArgumentException("The queue of the listeners must hold at least 1 event.");
+
+        this.listenerQueueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * Sets where the driver reports the latency of every operation, the traffic and the failures of its
+     * connections to, e.g. {@link pw.mihou.rosedb.metrics.HistogramMetrics}. Nothing is measured by default.
+     * @param metrics the metrics to report to.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setMetrics(RoseMetrics metrics){
+        if (metrics == null)
+            throw new IllegalArgumentException("The metrics cannot be null, use RoseMetrics.NOOP instead.");
+
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Sets the tracer that follows every request through the stages of the driver, from encoding to the
+     * completion of its future, e.g. {@link pw.mihou.rosedb.tracing.SlowRequestTracer}. Nothing is traced by default.
+     * @param tracer the tracer to report to.
+     * @return RoseBuilder for chain-calling methods.
+     */
+    public RoseBuilder setRequestTracer(RequestTracer tracer){
+        if (tracer == null)
+            throw new IllegalArgumentException("The tracer cannot be null, use RequestTracer.NOOP instead.");
+
+        this.tracer = tracer;
+        return this;
+    }
+
+    public int getTimeout(){
+        return timeout;
+    }
+
+    public TimeUnit getTimeUnit(){
+        return unit;
+    }
+
+    public long getRequestTimeout(){
+        return requestTimeout;
+    }
+
+    public long getAggregateTimeout(){
+        return aggregateTimeout;
+    }
+
+    public int getConnections(){
+        return connections;
+    }
+
+    public Routing getRouting(){
+        return routing;
+    }
+
+    public int getMaxInFlight(){
+        return maxInFlight;
+    }
+
+    public int getQueueSize(){
+        return queueSize;
+    }
+
+    public RejectionPolicy getRejectionPolicy(){
+        return rejectionPolicy;
+    }
+
+    public long getQueueTimeout(){
+        return queueTimeout;
+    }
+
+    public ReplayPolicy getReplayPolicy(){
+        return replayPolicy;
+    }
+
+    public boolean isBatching(){
+        return batching;
+    }
+
+    public boolean isAutoBatching(){
+        return autoBatchingWindow > 0 && autoBatchingSize > 1;
+    }
+
+    public long getAutoBatchingWindow(){
+        return autoBatchingWindow;
+    }
+
+    public int getAutoBatchingSize(){
+        return autoBatchingSize;
+    }
+
+    public boolean isCaching(){
+        return cacheMaximumSize > 0;
+    }
+
+    public long getCacheMaximumSize(){
+        return cacheMaximumSize;
+    }
+
+    public long getCacheMaximumWeight(){
+        return cacheMaximumWeight;
+    }
+
+    public long getCacheExpireAfterWrite(){
+        return cacheExpireAfterWrite;
+    }
+
+    public ForkJoinPool getForkJoinPool(){
+        return forkJoinPool;
+    }
+
+    public Executor getExecutor(){
+        return executor;
+    }
+
+    public int getListenerQueueSize(){
+        return listenerQueueSize;
+    }
+
+    public RoseMetrics getMetrics(){
+        return metrics;
+    }
+
+    public RequestTracer getRequestTracer(){
+        return tracer;
+    }
+
     public RoseDriver buildAsync(String address, int port, String authentication) throws URISyntaxException, FailedConnectionException {
-        return new RoseDriverImpl(new URI(String.format(format, address, port)), authentication, timeout, unit);
+        return new RoseDriverImpl(new URI(String.format(format, address, port)), authentication, false, this);
     }
 
     public RoseDriver build(String address, int port, String authentication) throws URISyntaxException, FailedConnectionException {
-        return new RoseDriverImpl(new URI(String.format(format, address, port)), authentication, true, timeout, unit);
+        return new RoseDriverImpl(new URI(String.format(format, address, port)), authentication, true, this);
     }
 
 }
@@ -1,17 +1,21 @@
 package pw.mihou.rosedb;
 
 import org.json.JSONObject;
+import pw.mihou.rosedb.cache.CacheStatistics;
 import pw.mihou.rosedb.entities.AggregatedCollection;
 import pw.mihou.rosedb.entities.AggregatedDatabase;
+import pw.mihou.rosedb.entities.StreamedCollection;
 import pw.mihou.rosedb.enums.FilterCasing;
 import pw.mihou.rosedb.enums.NumberFilter;
 import pw.mihou.rosedb.exceptions.FailedAuthorizationException;
 import pw.mihou.rosedb.exceptions.FileModificationException;
+import pw.mihou.rosedb.listeners.interfaces.Listener;
 import pw.mihou.rosedb.payloads.RosePayload;
 
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public interface RoseDriver {
 
@@ -44,6 +48,16 @@ public interface RoseDriver {
      */
     CompletableFuture<AggregatedCollection> aggregate(String database, String collection);
 
+    /**
+     * Retrieves all data from a specific collection in a specific database as a stream,
+     * unlike aggregate, the items are decoded one by one as the subscriber requests them
+     * which means the collection is never held in memory as a whole.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @return a publisher of the identifiers and items, every subscription retrieves the collection.
+     */
+    StreamedCollection stream(String database, String collection);
+
     /**
      * Finds a list of all objects that has the key and value inside a database and collection.
      * This utilizes aggregation methods.
@@ -180,6 +194,27 @@ public interface RoseDriver {
      */
     CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, boolean value);
 
+    /**
+     * Finds all the objects inside a database that match the query, the query is compiled
+     * once and every document is scanned a single time regardless of how many conditions there are.
+     * This utilizes aggregation methods.
+     * @param database the database to find on.
+     * @param query the query to match the objects with.
+     * @return Filtered Aggregated Database.
+     */
+    CompletableFuture<AggregatedDatabase> filter(String database, RoseQuery query);
+
+    /**
+     * Finds all the objects inside a collection that match the query, the query is compiled
+     * once and every document is scanned a single time regardless of how many conditions there are.
+     * This utilizes aggregation methods.
+     * @param database the database to find on.
+     * @param collection the collection to find.
+     * @param query the query to match the objects with.
+     * @return Filtered Aggregated Collection.
+     */
+    CompletableFuture<AggregatedCollection> filter(String database, String collection, RoseQuery query);
+
     /**
      * Adds an item to the database.
      * @param database the database to place the data.
@@ -358,6 +393,54 @@ public interface RoseDriver {
      * @return a payload that contains the response and kode.
      */
     CompletableFuture<RosePayload> revert(String database, String collection, String identifier);
+
+    /**
+     * Gets the statistics of the near cache, every statistic is
+     * zero if the near cache is not enabled on RoseBuilder.
+     * @return the statistics of the near cache.
+     */
+    CacheStatistics getCacheStatistics();
+
+    /**
+     * Creates a new batch which collects requests and sends all of them
+     * in a single round trip once it is executed.
+     * @return a new and empty batch.
+     */
+    RoseBatch batch();
+
+    /**
+     * Adds a listener that will intercept the messages received by this driver,
+     * listeners are owned by the driver and are never shared with other drivers.
+     * @param listener the listener to add.
+     */
+    void addListener(Listener listener);
+
+    /**
+     * Removes a listener that was added to this driver.
+     * @param listener the listener to remove.
+     */
+    void removeListener(Listener listener);
+
+    /**
+     * Returns a view of this driver whose requests use the given deadline instead of the
+     * defaults of the builder, the view shares its connections, cache and listeners with this
+     * driver so creating one is cheap, e.g. driver.withTimeout(50, TimeUnit.MILLISECONDS).get(...).
+     * Reads and auto-batched writes that are shared with other callers still fail once the deadline
+     * of the view has passed, requests fail with a {@link pw.mihou.rosedb.exceptions.RequestTimeoutException}
+     * once their deadline has passed.
+     * @param timeout how long the server has to reply, counting from when a request is made.
+     * @param unit the unit of the timeout.
+     * @return a view of this driver with the deadline.
+     */
+    RoseDriver withTimeout(long timeout, TimeUnit unit);
+
+    /**
+     * Returns the blocking counterpart of this driver which decodes every reply on the thread that
+     * waits for it instead of handing it over to the executor first, it shares everything with this driver.
+     * @return the blocking driver.
+     */
+    RoseSyncDriver sync();
+
     /**
      * Performs a graceful close on the client's connection with the server.
      * It waits for all the currently running requests to finish before closing the client.
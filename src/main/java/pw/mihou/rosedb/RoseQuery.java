@@ -0,0 +1,557 @@
+package pw.mihou.rosedb;
+
+import pw.mihou.rosedb.filters.DocumentFilter;
+import pw.mihou.rosedb.utility.FieldLocator;
+import pw.mihou.rosedb.utility.JsonScanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A composable query over the documents of a collection or database, queries are immutable
+ * and can be freely shared between threads and calls.
+ *
+ * <pre>{@code
+ * RoseQuery query = RoseQuery.where("profile.age").between(18, 30)
+ *         .and(RoseQuery.where("role").in("admin", "moderator"))
+ *         .and(RoseQuery.not(RoseQuery.where("banned").equalTo(true)));
+ * }</pre>
+ *
+ * A query is compiled once into an evaluator tree, every document is then scanned a single time
+ * to locate all the fields the query needs before the tree is evaluated.
+ */
+public final class RoseQuery {
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private final Node node;
+    private volatile DocumentFilter compiled;
+
+    private RoseQuery(Node node){
+        this.node = node;
+    }
+
+    /**
+     * Starts a condition on a field, nested fields are separated by dots.
+     * @param path the path of the field, e.g. profile.age
+     * @return the field to build the condition on.
+     */
+    public static Field where(String path){
+        Objects.requireNonNull(path, "The path of a field cannot be null.");
+        if (path.isEmpty())
+            throw new IllegalArgumentException("The path of a field cannot be empty.");
+
+        return new Field(path);
+    }
+
+    /**
+     * Creates a query that matches when every one of the queries matches.
+     * @param queries the queries.
+     * @return the query.
+     */
+    public static RoseQuery allOf(RoseQuery... queries){
+        return new RoseQuery(new Composite(true, nodes(true, queries)));
+    }
+
+    /**
+     * Creates a query that matches when at least one of the queries matches.
+     * @param queries the queries.
+     * @return the query.
+     */
+    public static RoseQuery anyOf(RoseQuery... queries){
+        return new RoseQuery(new Composite(false, nodes(false, queries)));
+    }
+
+    /**
+     * Creates a query that matches when the query does not match.
+     * @param query the query to negate.
+     * @return the query.
+     */
+    public static RoseQuery not(RoseQuery query){
+        return new RoseQuery(new Not(query.node));
+    }
+
+    /**
+     * Creates a query that matches when both this query and the other query match.
+     * @param query the other query.
+     * @return the query.
+     */
+    public RoseQuery and(RoseQuery query){
+        return allOf(this, query);
+    }
+
+    /**
+     * Creates a query that matches when either this query or the other query matches.
+     * @param query the other query.
+     * @return the query.
+     */
+    public RoseQuery or(RoseQuery query){
+        return anyOf(this, query);
+    }
+
+    /**
+     * Creates a query that matches when this query does not match.
+     * @return the query.
+     */
+    public RoseQuery negate(){
+        return not(this);
+    }
+
+    /**
+     * Compiles the query into a filter, the filter is only compiled once
+     * and is reused for every call afterwards.
+     * @return the compiled filter.
+     */
+    public DocumentFilter compile(){
+        DocumentFilter filter = compiled;
+        if (filter == null) {
+            FieldLocator locator = new FieldLocator();
+            Evaluator evaluator = node.bind(locator);
+            filter = document -> evaluator.test(document, locator.locate(document));
+            compiled = filter;
+        }
+
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+
+    private static List<Node> nodes(boolean all, RoseQuery... queries){
+        if (queries.length == 0)
+            throw new IllegalArgumentException("A composite query needs at least one query.");
+
+        List<Node> nodes = new ArrayList<>(queries.length);
+        for (RoseQuery query : queries) {
+            Node node = Objects.requireNonNull(query, "A query cannot be null.").node;
+            if (node instanceof Composite && ((Composite) node).all == all) {
+                nodes.addAll(((Composite) node).nodes);
+            } else {
+                nodes.add(node);
+            }
+        }
+
+        return nodes;
+    }
+
+    /**
+     * A field of the document which a condition is placed upon.
+     */
+    public static final class Field {
+
+        private final String path;
+
+        private Field(String path){
+            this.path = path;
+        }
+
+        /**
+         * Matches when the field exists, even if its value is null.
+         * @return the query.
+         */
+        public RoseQuery exists(){
+            return leaf("exists", (document, at) -> true);
+        }
+
+        /**
+         * Matches when the field exists and is null.
+         * @return the query.
+         */
+        public RoseQuery isNull(){
+            return leaf("is null", JsonScanner::isNull);
+        }
+
+        /**
+         * Matches when the field is equal to the value, booleans, numbers, strings
+         * and null are supported.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery equalTo(Object value){
+            return leaf("= " + value, equality(value));
+        }
+
+        /**
+         * Matches when the field is not equal to the value, this also matches documents
+         * where the field is missing.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery notEqualTo(Object value){
+            return not(equalTo(value));
+        }
+
+        /**
+         * Matches when the field is a string equal to the value regardless of casing.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery equalToIgnoreCase(String value){
+            Objects.requireNonNull(value, "The value cannot be null.");
+            return leaf("~= " + value, (document, at) -> JsonScanner.stringEquals(document, at, value, true));
+        }
+
+        /**
+         * Matches when the field is greater than the value.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery greaterThan(Number value){
+            return range("> " + value, value, comparison -> comparison > 0);
+        }
+
+        /**
+         * Matches when the field is greater than or equal to the value.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery greaterOrEquals(Number value){
+            return range(">= " + value, value, comparison -> comparison >= 0);
+        }
+
+        /**
+         * Matches when the field is less than the value.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery lessThan(Number value){
+            return range("< " + value, value, comparison -> comparison < 0);
+        }
+
+        /**
+         * Matches when the field is less than or equal to the value.
+         * @param value the value to compare with.
+         * @return the query.
+         */
+        public RoseQuery lessOrEquals(Number value){
+            return range("<= " + value, value, comparison -> comparison <= 0);
+        }
+
+        /**
+         * Matches when the field is between the two values, both ends are inclusive.
+         * @param minimum the lowest value.
+         * @param maximum the highest value.
+         * @return the query.
+         */
+        public RoseQuery between(Number minimum, Number maximum){
+            Objects.requireNonNull(minimum, "The minimum cannot be null.");
+            Objects.requireNonNull(maximum, "The maximum cannot be null.");
+            return leaf("between " + minimum + " and " + maximum, (document, at) -> {
+                int lower = compare(document, at, minimum);
+                if (lower == INCOMPARABLE || lower < 0)
+                    return false;
+
+                int upper = compare(document, at, maximum);
+                return upper != INCOMPARABLE && upper <= 0;
+            });
+        }
+
+        /**
+         * Matches when the field is a string that lexicographically sorts between the
+         * two values, both ends are inclusive.
+         * @param minimum the lowest value.
+         * @param maximum the highest value.
+         * @return the query.
+         */
+        public RoseQuery between(String minimum, String maximum){
+            Objects.requireNonNull(minimum, "The minimum cannot be null.");
+            Objects.requireNonNull(maximum, "The maximum cannot be null.");
+            return leaf("between " + minimum + " and " + maximum, (document, at) -> {
+                if (!JsonScanner.isString(document, at))
+                    return false;
+
+                String value = JsonScanner.readString(document, at);
+                return value.compareTo(minimum) >= 0 && value.compareTo(maximum) <= 0;
+            });
+        }
+
+        /**
+         * Matches when the field is equal to any of the values, booleans, numbers and strings
+         * are supported, the values are hashed once which keeps the check constant regardless
+         * of how many values there are.
+         * @param values the values to compare with.
+         * @return the query.
+         */
+        public RoseQuery in(Object... values){
+            return in(Arrays.asList(values));
+        }
+
+        /**
+         * Matches when the field is equal to any of the values, booleans, numbers and strings
+         * are supported, the values are hashed once which keeps the check constant regardless
+         * of how many values there are.
+         * @param values the values to compare with.
+         * @return the query.
+         */
+        public RoseQuery in(Collection<?> values){
+            Set<String> strings = new HashSet<>();
+            Set<Long> longs = new HashSet<>();
+            Set<Double> doubles = new HashSet<>();
+            boolean[] booleans = new boolean[2];
+            for (Object value : values) {
+                if (value instanceof Boolean) {
+                    booleans[(Boolean) value ? 1 : 0] = true;
+                } else if (value instanceof Number) {
+                    double number = ((Number) value).doubleValue();
+                    if (isWhole(value, number)) {
+                        longs.add(((Number) value).longValue());
+                    } else if (!Double.isNaN(number)) {
+                        doubles.add(number);
+                    }
+                } else if (value instanceof CharSequence || value instanceof Character) {
+                    strings.add(value.toString());
+                } else if (value != null) {
+                    throw new IllegalArgumentException("Only booleans, numbers and strings are supported, received " + value.getClass().getName());
+                }
+            }
+
+            return leaf("in " + values, (document, at) -> {
+                if (JsonScanner.isString(document, at) && strings.contains(JsonScanner.readString(document, at)))
+                    return true;
+
+                if (JsonScanner.isNumber(document, at)) {
+                    if (JsonScanner.isIntegral(document, at))
+                        return longs.contains(JsonScanner.readLong(document, at));
+
+                    try {
+                        double number = JsonScanner.readDouble(document, at);
+                        return number == Math.rint(number) && Math.abs(number) < Long.MAX_VALUE
+                                ? longs.contains((long) number) : doubles.contains(number);
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+
+                return (booleans[1] && JsonScanner.booleanEquals(document, at, true))
+                        || (booleans[0] && JsonScanner.booleanEquals(document, at, false));
+            });
+        }
+
+        private RoseQuery range(String description, Number value, Comparison comparison){
+            Objects.requireNonNull(value, "The value cannot be null.");
+            return leaf(description, (document, at) -> {
+                int result = compare(document, at, value);
+                return result != INCOMPARABLE && comparison.test(result);
+            });
+        }
+
+        private RoseQuery leaf(String description, Predicate predicate){
+            return new RoseQuery(new Leaf(path, description, predicate));
+        }
+
+    }
+
+    private static Predicate equality(Object value){
+        if (value == null)
+            return JsonScanner::isNull;
+
+        if (value instanceof Boolean) {
+            boolean expected = (Boolean) value;
+            return (document, at) -> JsonScanner.booleanEquals(document, at, expected);
+        }
+
+        if (value instanceof Number)
+            return (document, at) -> compare(document, at, (Number) value) == 0;
+
+        if (value instanceof CharSequence || value instanceof Character) {
+            String expected = value.toString();
+            return (document, at) -> JsonScanner.stringEquals(document, at, expected, false);
+        }
+
+        throw new IllegalArgumentException("Only booleans, numbers, strings and null are supported, received " + value.getClass().getName());
+    }
+
+    /**
+     * Compares the number at the position with the value.
+     * @return the comparison, or {@link #INCOMPARABLE} if the field is not a number.
+     */
+    private static int compare(String document, int at, Number value){
+        if (!JsonScanner.isNumber(document, at))
+            return INCOMPARABLE;
+
+        try {
+            boolean integral = JsonScanner.isIntegral(document, at);
+            boolean whole = isWhole(value, value.doubleValue());
+            if (integral && whole)
+                return Long.compare(JsonScanner.readLong(document, at), value.longValue());
+
+            if (integral)
+                return reverse(compare(value.doubleValue(), JsonScanner.readLong(document, at)));
+
+            double actual = JsonScanner.readDouble(document, at);
+            if (whole)
+                return compare(actual, value.longValue());
+
+            double expected = value.doubleValue();
+            if (Double.isNaN(actual) || Double.isNaN(expected))
+                return INCOMPARABLE;
+
+            return actual == expected ? 0 : (actual < expected ? -1 : 1);
+        } catch (NumberFormatException e) {
+            return INCOMPARABLE;
+        }
+    }
+
+    /**
+     * Compares a double with a long exactly, without widening the long into a double
+     * which would round longs beyond 2^53.
+     * @return the comparison, or {@link #INCOMPARABLE} if the double is NaN.
+     */
+    private static int compare(double actual, long expected){
+        if (Double.isNaN(actual))
+            return INCOMPARABLE;
+
+        if (actual >= 0x1p63)
+            return 1;
+
+        if (actual < -0x1p63)
+            return -1;
+
+        long truncated = (long) actual;
+        if (truncated != expected)
+            return Long.compare(truncated, expected);
+
+        return actual == truncated ? 0 : (actual < truncated ? -1 : 1);
+    }
+
+    private static int reverse(int comparison){
+        return comparison == INCOMPARABLE ? INCOMPARABLE : -comparison;
+    }
+
+    private static boolean isWhole(Object value, double number){
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return true;
+
+        return number == Math.rint(number) && Math.abs(number) < Long.MAX_VALUE;
+    }
+
+    @FunctionalInterface
+    private interface Predicate {
+
+        boolean test(String document, int at);
+
+    }
+
+    @FunctionalInterface
+    private interface Comparison {
+
+        boolean test(int comparison);
+
+    }
+
+    @FunctionalInterface
+    private interface Evaluator {
+
+        boolean test(String document, int[] positions);
+
+    }
+
+    private interface Node {
+
+        /**
+         * Registers the fields this node reads onto the locator and
+         * creates the evaluator of the node.
+         */
+        Evaluator bind(FieldLocator locator);
+
+    }
+
+    private static final class Leaf implements Node {
+
+        private final String path;
+        private final String description;
+        private final Predicate predicate;
+
+        private Leaf(String path, String description, Predicate predicate){
+            this.path = path;
+            this.description = description;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public Evaluator bind(FieldLocator locator) {
+            int slot = locator.add(path);
+            return (document, positions) -> positions[slot] >= 0 && predicate.test(document, positions[slot]);
+        }
+
+        @Override
+        public String toString() {
+            return path + " " + description;
+        }
+
+    }
+
+    private static final class Composite implements Node {
+
+        private final boolean all;
+        private final List<Node> nodes;
+
+        private Composite(boolean all, List<Node> nodes){
+            this.all = all;
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Evaluator bind(FieldLocator locator) {
+            Evaluator[] evaluators = new Evaluator[nodes.size()];
+            for (int i = 0; i < evaluators.length; i++) {
+                evaluators[i] = nodes.get(i).bind(locator);
+            }
+
+            if (evaluators.length == 1)
+                return evaluators[0];
+
+            return (document, positions) -> {
+                for (Evaluator evaluator : evaluators) {
+                    if (evaluator.test(document, positions) != all)
+                        return !all;
+                }
+
+                return all;
+            };
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("(");
+            for (int i = 0; i < nodes.size(); i++) {
+                if (i > 0)
+                    builder.append(all ? " and " : " or ");
+
+                builder.append(nodes.get(i));
+            }
+
+            return builder.append(')').toString();
+        }
+
+    }
+
+    private static final class Not implements Node {
+
+        private final Node node;
+
+        private Not(Node node){
+            this.node = node;
+        }
+
+        @Override
+        public Evaluator bind(FieldLocator locator) {
+            Evaluator evaluator = node.bind(locator);
+            return (document, positions) -> !evaluator.test(document, positions);
+        }
+
+        @Override
+        public String toString() {
+            return "not " + node;
+        }
+
+    }
+
+}
@@ -0,0 +1,353 @@
+package pw.mihou.rosedb;
+
+import org.json.JSONObject;
+import pw.mihou.rosedb.entities.AggregatedCollection;
+import pw.mihou.rosedb.entities.AggregatedDatabase;
+import pw.mihou.rosedb.enums.FilterCasing;
+import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The blocking counterpart of {@link RoseDriver}, every method blocks the calling thread until the server
+ * has replied and the reply is decoded on the calling thread itself instead of being handed over to the
+ * executor of the driver first. This suits callers that block anyway, especially virtual threads.
+ *
+ * Every method fails the same way {@link java.util.concurrent.CompletableFuture#join()} does, which is with
+ * a {@link java.util.concurrent.CompletionException} that holds the exception of the request.
+ */
+public interface RoseSyncDriver {
+
+    /**
+     * Retrieves data from the database.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the name or identifier of the data.
+     * @return RosePayload.
+     */
+    RosePayload get(String database, String collection, String identifier);
+
+    /**
+     * Retrieves all data from the database including collections.
+     * @param database the database holding the data.
+     * @return AggregatedDatabase.
+     */
+    AggregatedDatabase aggregate(String database);
+
+    /**
+     * Retrieves all data from a specific collection in a specific database.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @return AggregatedCollection.
+     */
+    AggregatedCollection aggregate(String database, String collection);
+
+    /**
+     * Finds all the items of the database whose value of the key matches.
+     * @param database the database to find on.
+     * @param key the key to check.
+     * @param value the value to search for on the objects.
+     * @param casing whether to ignore casing.
+     * @return Filtered AggregatedDatabase
+     */
+    AggregatedDatabase filter(String database, String key, String value, FilterCasing casing);
+
+    /**
+     * Finds all the items of the database whose value of the key passes the number filter.
+     * @param database the database to find on.
+     * @param key the key to check.
+     * @param value the value to compare against.
+     * @param filter the filter to use.
+     * @return Filtered AggregatedDatabase
+     */
+    AggregatedDatabase filter(String database, String key, long value, NumberFilter filter);
+
+    /**
+     * Finds all the items of the database whose value of the key passes the number filter.
+     * @param database the database to find on.
+     * @param key the key to check.
+     * @param value the value to compare against.
+     * @param filter the filter to use.
+     * @return Filtered AggregatedDatabase
+     */
+    AggregatedDatabase filter(String database, String key, double value, NumberFilter filter);
+
+    /**
+     * Finds all the items of the database whose value of the key passes the number filter.
+     * @param database the database to find on.
+     * @param key the key to check.
+     * @param value the value to compare against.
+     * @param filter the filter to use.
+     * @return Filtered AggregatedDatabase
+     */
+    AggregatedDatabase filter(String database, String key, int value, NumberFilter filter);
+
+    /**
+     * Finds all the items of the database whose value of the key is the value.
+     * @param database the database to find on.
+     * @param key the key to check.
+     * @param value the value to search for on the objects.
+     * @return Filtered AggregatedDatabase
+     */
+    AggregatedDatabase filter(String database, String key, boolean value);
+
+    /**
+     * Finds all the items of the database whose value of the key is the value.
+     * @param database the database to find on.
+     * @param key the key to check.
+     * @param value the value to search for on the objects.
+     * @param <T> the type of the value.
+     * @return Filtered AggregatedDatabase
+     */
+    <T> AggregatedDatabase filter(String database, String key, T value);
+
+    /**
+     * Finds all the items of the database that match the query.
+     * @param database the database to find on.
+     * @param query the query the items must match.
+     * @return Filtered AggregatedDatabase
+     */
+    AggregatedDatabase filter(String database, RoseQuery query);
+
+    /**
+     * Finds all the items of the collection whose value of the key matches.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param key the key to check.
+     * @param value the value to search for on the objects.
+     * @param casing whether to ignore casing.
+     * @return Filtered AggregatedCollection
+     */
+    AggregatedCollection filter(String database, String collection, String key, String value, FilterCasing casing);
+
+    /**
+     * Finds all the items of the collection whose value of the key passes the number filter.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param key the key to check.
+     * @param value the value to compare against.
+     * @param filter the filter to use.
+     * @return Filtered AggregatedCollection
+     */
+    AggregatedCollection filter(String database, String collection, String key, long value, NumberFilter filter);
+
+    /**
+     * Finds all the items of the collection whose value of the key passes the number filter.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param key the key to check.
+     * @param value the value to compare against.
+     * @param filter the filter to use.
+     * @return Filtered AggregatedCollection
+     */
+    AggregatedCollection filter(String database, String collection, String key, double value, NumberFilter filter);
+
+    /**
+     * Finds all the items of the collection whose value of the key passes the number filter.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param key the key to check.
+     * @param value the value to compare against.
+     * @param filter the filter to use.
+     * @return Filtered AggregatedCollection
+     */
+    AggregatedCollection filter(String database, String collection, String key, int value, NumberFilter filter);
+
+    /**
+     * Finds all the items of the collection whose value of the key is the value.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param key the key to check.
+     * @param value the value to search for on the objects.
+     * @return Filtered AggregatedCollection
+     */
+    AggregatedCollection filter(String database, String collection, String key, boolean value);
+
+    /**
+     * Finds all the items of the collection whose value of the key is the value.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param key the key to check.
+     * @param value the value to search for on the objects.
+     * @param <T> the type of the value.
+     * @return Filtered AggregatedCollection
+     */
+    <T> AggregatedCollection filter(String database, String collection, String key, T value);
+
+    /**
+     * Finds all the items of the collection that match the query.
+     * @param database the database to find on.
+     * @param collection the collection to find on.
+     * @param query the query the items must match.
+     * @return Filtered AggregatedCollection
+     */
+    AggregatedCollection filter(String database, String collection, RoseQuery query);
+
+    /**
+     * Adds an item to the database.
+     * @param database the database to place the data.
+     * @param collection the collection to place the data.
+     * @param identifier the identifier name of the data.
+     * @param document the JSON Object to add.
+     * @return the same JSON Object but from the server.
+     */
+    RosePayload add(String database, String collection, String identifier, JSONObject document);
+
+    /**
+     * Adds an item to the database.
+     * @param database the database to place the data.
+     * @param collection the collection to place the data.
+     * @param identifier the identifier name of the data.
+     * @param document the object to add.
+     * @param <T> the type of the object.
+     * @return the same JSON Object but from the server.
+     */
+    <T> RosePayload add(String database, String collection, String identifier, T document);
+
+    /**
+     * Removes a key (and value) from an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key that will be removed.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload remove(String database, String collection, String identifier, String key);
+
+    /**
+     * Removes multiple keys (and values) from an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param keys the keys that will be removed.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload remove(String database, String collection, String identifier, Collection<String> keys);
+
+    /**
+     * Removes an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @return whether the item was removed.
+     */
+    boolean remove(String database, String collection, String identifier);
+
+    /**
+     * Removes an entire collection.
+     * @param database the database holding the collection.
+     * @param collection the collection to remove.
+     * @return whether the collection was removed.
+     */
+    boolean removeCollection(String database, String collection);
+
+    /**
+     * Removes an entire database.
+     * @param database the database to remove.
+     * @return whether the database was removed.
+     */
+    boolean removeDatabase(String database);
+
+    /**
+     * Updates a value of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key to update.
+     * @param value the new value.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, String key, String value);
+
+    /**
+     * Updates a value of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key to update.
+     * @param value the new value.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, String key, int value);
+
+    /**
+     * Updates a value of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key to update.
+     * @param value the new value.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, String key, boolean value);
+
+    /**
+     * Updates a value of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key to update.
+     * @param value the new value.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, String key, double value);
+
+    /**
+     * Updates a value of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key to update.
+     * @param value the new value.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, String key, long value);
+
+    /**
+     * Updates a value of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param key the key to update.
+     * @param value the new value.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, String key, Object value);
+
+    /**
+     * Updates multiple values of an item.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @param map the keys and their new values.
+     * @return the updated data in the form of an RosePayload.
+     */
+    RosePayload update(String database, String collection, String identifier, Map<String, ?> map);
+
+    /**
+     * Reverts the item to its previous version.
+     * @param database the database holding the data.
+     * @param collection the collection holding the data.
+     * @param identifier the identifier of the data.
+     * @return the reverted data in the form of an RosePayload.
+     */
+    RosePayload revert(String database, String collection, String identifier);
+
+    /**
+     * Returns a view of this driver whose requests use the given deadline instead of the defaults of the builder.
+     * @param timeout how long the server has to reply once a request has been written.
+     * @param unit the unit of the timeout.
+     * @return a view of this driver with the deadline.
+     */
+    RoseSyncDriver withTimeout(long timeout, TimeUnit unit);
+
+    /**
+     * Gets the asynchronous driver this driver blocks on, which is also what shuts the connections down.
+     * @return the asynchronous driver.
+     */
+    RoseDriver async();
+
+}
@@ -0,0 +1,63 @@
+package pw.mihou.rosedb.cache;
+
+public class CacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+
+    public CacheStatistics(long hits, long misses, long evictions, long size){
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Gets the amount of retrievals that were answered by the cache.
+     * @return the amount of hits.
+     */
+    public long getHits(){
+        return hits;
+    }
+
+    /**
+     * Gets the amount of retrievals that had to be sent to the server.
+     * @return the amount of misses.
+     */
+    public long getMisses(){
+        return misses;
+    }
+
+    /**
+     * Gets the amount of items that were evicted because they expired
+     * or because the cache ran out of room.
+     * @return the amount of evictions.
+     */
+    public long getEvictions(){
+        return evictions;
+    }
+
+    /**
+     * Gets the amount of items that are currently cached.
+     * @return the size of the cache.
+     */
+    public long getSize(){
+        return size;
+    }
+
+    /**
+     * Gets the ratio of retrievals that were answered by the cache.
+     * @return the hit rate between 0 and 1.
+     */
+    public double getHitRate(){
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size + "}";
+    }
+}
@@ -0,0 +1,250 @@
+package pw.mihou.rosedb.cache;
+
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RoseCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long expireAfterWrite;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new near cache for retrieved items, the cache is split into segments that
+     * are locked separately and each segment evicts its least recently used items once
+     * it is over its share of the bounds.
+     * @param maximumSize the maximum amount of items, 0 for no limit.
+     * @param maximumWeight the maximum total length of the cached responses, 0 for no limit.
+     * @param expireAfterWrite how long an item stays cached in nanoseconds, 0 for no limit.
+     */
+    public RoseCache(long maximumSize, long maximumWeight, long expireAfterWrite){
+        this.expireAfterWrite = expireAfterWrite;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(share(maximumSize), share(maximumWeight));
+        }
+    }
+
+    /**
+     * Marks the start of a retrieval, the returned stamp must be handed back
+     * to {@link #put(String, String, String, RosePayload, long)} so that replies
+     * which raced with a modification of the same item are never cached.
+     * @param database the database holding the item.
+     * @param collection the collection holding the item.
+     * @param identifier the identifier of the item.
+     * @return the stamp of the retrieval.
+     */
+    public long stamp(String database, String collection, String identifier){
+        return segment(new Key(database, collection, identifier)).generation;
+    }
+
+    /**
+     * Gets the cached item, expired items are treated as missing.
+     * @param database the database holding the item.
+     * @param collection the collection holding the item.
+     * @param identifier the identifier of the item.
+     * @return the cached payload, null if the item is not cached.
+     */
+    public RosePayload get(String database, String collection, String identifier){
+        Key key = new Key(database, collection, identifier);
+        RosePayload payload = segment(key).get(key);
+        if (payload == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return payload;
+    }
+
+    /**
+     * Caches the item unless it was modified after the retrieval started.
+     * @param database the database holding the item.
+     * @param collection the collection holding the item.
+     * @param identifier the identifier of the item.
+     * @param payload the payload that was retrieved.
+     * @param stamp the stamp from the start of the retrieval.
+     */
+    public void put(String database, String collection, String identifier, RosePayload payload, long stamp){
+        Key key = new Key(database, collection, identifier);
+        segment(key).put(key, payload, stamp);
+    }
+
+    /**
+     * Removes a single item from the cache.
+     * @param database the database holding the item.
+     * @param collection the collection holding the item.
+     * @param identifier the identifier of the item.
+     */
+    public void invalidate(String database, String collection, String identifier){
+        Key key = new Key(database, collection, identifier);
+        segment(key).invalidate(key);
+    }
+
+    /**
+     * Removes every item of a collection, or of an entire database if
+     * the collection is null, from the cache.
+     * @param database the database holding the items.
+     * @param collection the collection holding the items, null for the entire database.
+     */
+    public void invalidateAll(String database, String collection){
+        for (Segment segment : segments) {
+            segment.invalidateAll(database, collection);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the statistics of this cache.
+     * @return the statistics of the cache.
+     */
+    public CacheStatistics getStatistics(){
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segment(Key key){
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static long share(long bound){
+        return bound <= 0 ? Long.MAX_VALUE : Math.max(1, (bound + SEGMENTS - 1) / SEGMENTS);
+    }
+
+    private class Segment {
+
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maximumSize;
+        private final long maximumWeight;
+        private long weight = 0;
+        private volatile long generation = 0;
+
+        private Segment(long maximumSize, long maximumWeight){
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        private synchronized RosePayload get(Key key){
+            Entry entry = entries.get(key);
+            if (entry == null)
+                return null;
+
+            if (entry.isExpired()) {
+                remove(key);
+                evictions.increment();
+                return null;
+            }
+
+            return entry.payload;
+        }
+
+        private synchronized void put(Key key, RosePayload payload, long stamp){
+            if (stamp != generation)
+                return;
+
+            Entry entry = new Entry(payload);
+            Entry previous = entries.put(key, entry);
+            if (previous != null)
+                weight -= previous.weight;
+            weight += entry.weight;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while ((entries.size() > maximumSize || weight > maximumWeight) && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictions.increment();
+            }
+        }
+
+        private synchronized void invalidate(Key key){
+            generation++;
+            remove(key);
+        }
+
+        private synchronized void invalidateAll(String database, String collection){
+            generation++;
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> entry = iterator.next();
+                if (entry.getKey().database.equals(database) && (collection == null || entry.getKey().collection.equals(collection))) {
+                    iterator.remove();
+                    weight -= entry.getValue().weight;
+                }
+            }
+        }
+
+        private synchronized int size(){
+            return entries.size();
+        }
+
+        private void remove(Key key){
+            Entry entry = entries.remove(key);
+            if (entry != null)
+                weight -= entry.weight;
+        }
+
+    }
+
+    private class Entry {
+
+        private final RosePayload payload;
+        private final long weight;
+        private final long written = expireAfterWrite > 0 ? System.nanoTime() : 0;
+
+        private Entry(RosePayload payload){
+            this.payload = payload;
+            this.weight = weigh(payload);
+        }
+
+        private boolean isExpired(){
+            return expireAfterWrite > 0 && System.nanoTime() - written > expireAfterWrite;
+        }
+
+    }
+
+    private static long weigh(RosePayload payload){
+        return payload.getRaw() == null ? 1 : Math.max(1, payload.getRaw().length());
+    }
+
+    private static class Key {
+
+        private final String database;
+        private final String collection;
+        private final String identifier;
+        private final int hash;
+
+        private Key(String database, String collection, String identifier){
+            this.database = database;
+            this.collection = collection;
+            this.identifier = identifier;
+            this.hash = Objects.hash(database, collection, identifier);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return database.equals(key.database) && collection.equals(key.collection) && identifier.equals(key.identifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
@@ -1,41 +1,94 @@
 package pw.mihou.rosedb.clients;
 
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.framing.CloseFrame;
 import org.java_websocket.handshake.ServerHandshake;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pw.mihou.rosedb.exceptions.FailedConnectionException;
 import pw.mihou.rosedb.io.Scheduler;
-import pw.mihou.rosedb.listeners.ReceiveListener;
 import pw.mihou.rosedb.manager.ListenerManager;
+import pw.mihou.rosedb.manager.ResponseManager;
+import pw.mihou.rosedb.metrics.RoseMetrics;
+import pw.mihou.rosedb.tracing.RequestTracer;
+import pw.mihou.rosedb.utility.FieldLocator;
+import pw.mihou.rosedb.utility.JsonScanner;
+import pw.mihou.rosedb.utility.RoseUtility;
 
 import java.net.URI;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class MainClient extends WebSocketClient {
 
     public static final Logger log = LoggerFactory.getLogger(MainClient.class);
+    private static final FieldLocator locator = new FieldLocator();
+    private static final int REPLY_TO = locator.add("replyTo");
+    private static final int KODE = locator.add("kode");
     public final URI uri;
-    public boolean isConnected = false;
+    private volatile boolean connected = false;
     public String error;
-    private boolean reconnecting = false;
+    private volatile boolean reconnecting = false;
+    private final ListenerManager listenerManager;
+    private final ResponseManager responseManager;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger permits = new AtomicInteger();
+    private final int maxInFlight;
+    private final RoseMetrics metrics;
+    private final RequestTracer tracer;
+    private final int connectTimeout;
+    private final Executor executor;
+    private boolean opened = false;
+    private volatile Runnable openCallback;
+    private volatile CompletableFuture<Boolean> reconnection;
 
-    public MainClient(URI serverUri) {
-        super(serverUri);
+    public MainClient(URI serverUri, int maxInFlight, int connectTimeout, Executor executor, ListenerManager listenerManager,
+                      ResponseManager responseManager, RoseMetrics metrics, RequestTracer tracer) {
+        super(serverUri, new Draft_6455(), null, connectTimeout);
         this.uri = serverUri;
+        this.maxInFlight = maxInFlight;
+        this.connectTimeout = connectTimeout;
+        this.executor = executor;
+        this.listenerManager = listenerManager;
+        this.responseManager = responseManager;
+        this.metrics = metrics;
+        this.tracer = tracer;
     }
 
     @Override
     public void onOpen(ServerHandshake serverHandshake) {
-        isConnected = true;
-        ListenerManager.addListener(new ReceiveListener());
-        ListenerManager.connect(serverHandshake);
+        connected = true;
+        reconnecting = false;
+        if (opened)
+            metrics.onReconnect();
+
+        opened = true;
+        listenerManager.connect(serverHandshake);
+
+        Runnable callback = openCallback;
+        if (callback != null)
+            executor.execute(callback);
+
+        CompletableFuture<Boolean> reconnection = this.reconnection;
+        if (reconnection != null)
+            reconnection.complete(true);
+    }
+
+    /**
+     * Sets what runs whenever this client has opened its connection, the callback
+     * runs outside of the thread that reads from the connection.
+     * @param callback the callback.
+     */
+    public void setOpenCallback(Runnable callback) {
+        this.openCallback = callback;
     }
 
     public CompletableFuture<Boolean> connect(int timeout, TimeUnit unit, boolean blocking) throws FailedConnectionException {
@@ -47,7 +100,7 @@ public class MainClient extends WebSocketClient {
                     throw new FailedConnectionException("Failed to connect to " + uri.toString() + ": " + error);
                 }
 
-                if (!this.isConnected)
+                if (!this.connected)
                     throw new FailedConnectionException("Failed to connect to " + uri.toString() + ": " + error);
 
                 return CompletableFuture.supplyAsync(() -> true);
@@ -60,7 +113,7 @@ public class MainClient extends WebSocketClient {
             return CompletableFuture.supplyAsync(() -> {
                 try {
                     return Scheduler.getScheduler().schedule(() -> {
-                        if (!this.isConnected && this.error != null) {
+                        if (!this.connected && this.error != null) {
                             log.error("Failed to connect to {}: {}", uri.toString(), this.error);
                             return false;
                         }
@@ -77,44 +130,149 @@ public class MainClient extends WebSocketClient {
 
     @Override
     public void onMessage(String s) {
-        ListenerManager.pass(new JSONObject(s));
+        long received = tracer != RequestTracer.NOOP ? System.nanoTime() : 0;
+        int bytes = metrics != RoseMetrics.NOOP || tracer != RequestTracer.NOOP ? RoseUtility.utf8Length(s) : 0;
+        metrics.onReceived(bytes);
+
+        // Only the header fields are located, the frame is handed over untouched to the request waiting for it.
+        int[] positions = locator.locate(s);
+        int replyTo = positions[REPLY_TO];
+        int kode = positions[KODE];
+        if (replyTo < 0 || kode < 0 || JsonScanner.isNull(s, replyTo) || JsonScanner.isNull(s, kode))
+            return;
+
+        String unique = JsonScanner.readString(s, replyTo);
+        tracer.onReceived(unique, bytes, received);
+        responseManager.complete(unique, s);
+        listenerManager.pass(s);
+    }
+
+    /**
+     * Reserves room for one more request on this client, this fails
+     * once the client has reached its maximum amount of requests in flight.
+     * @return whether the request may be written to this client.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = permits.get();
+            if (current >= maxInFlight)
+                return false;
+        } while (!permits.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Marks a request as written to this client and waiting for its reply,
+     * the room must have been reserved through {@link #tryAcquire()}.
+     * @param unique the unique value of the request.
+     */
+    public void track(String unique) {
+        inFlight.add(unique);
+    }
+
+    /**
+     * Marks a request of this client as no longer waiting for a reply
+     * and frees up the room it has reserved.
+     * @param unique the unique value of the request.
+     */
+    public void untrack(String unique) {
+        inFlight.remove(unique);
+        release();
+    }
+
+    /**
+     * Frees up room that was reserved through {@link #tryAcquire()}.
+     */
+    public void release() {
+        permits.decrementAndGet();
+    }
+
+    /**
+     * Checks whether this client has opened its connection and has not lost it since, this is
+     * written by the thread of the connection and read by every thread that sends requests.
+     * @return whether the client is connected.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Gets the amount of requests written to this client that are
+     * still waiting for a reply from the server.
+     * @return the amount of requests in flight.
+     */
+    public int getInFlight() {
+        return permits.get();
     }
 
     @Override
     public void onClose(int i, String s, boolean b) {
-        isConnected = false;
-        ListenerManager.close(i, s, b);
+        connected = false;
+        listenerManager.close(i, s, b);
+
+        // The replies of the requests written to this connection are lost with it, the request manager decides which are replayed.
+        inFlight.forEach(unique -> {
+            CompletableFuture<String> future = responseManager.remove(unique);
+            if (future != null)
+                future.completeExceptionally(new FailedConnectionException("The connection to " + uri.toString() + " was closed before the server replied: " + s));
+        });
+        inFlight.clear();
 
-        if (i == 4001) {
+        if (i == 4001)
             error = s;
+
+        // A failed attempt to reconnect is retried by the attempt itself.
+        CompletableFuture<Boolean> reconnection = this.reconnection;
+        if (reconnecting && reconnection != null && reconnection.complete(false))
             return;
-        }
 
-        if (i == 1000)
+        if (i == 4001 || i == 1000)
             return;
 
         if (!reconnecting) {
-            Scheduler.executorService.submit(() -> bucketReconnect(new AtomicInteger(0)));
+            bucketReconnect(new AtomicInteger(0));
         }
     }
 
+    /**
+     * Reconnects to the server after a delay that grows by a second with every failed attempt, the attempts
+     * are started on the scheduler and never wait for the connection, an attempt that has not opened the
+     * connection within the connect timeout is abandoned and counts as failed.
+     * @param i the amount of attempts so far.
+     */
     public void bucketReconnect(AtomicInteger i) {
         reconnecting = true;
         log.info("Client has disconnected from server, attempting to reconnect in {} seconds", i.addAndGet(1));
-        try {
-            Thread.sleep(TimeUnit.SECONDS.toMillis(i.get()));
-            if (!reconnectBlocking()) {
-                bucketReconnect(i);
-                return;
+        Scheduler.schedule(() -> {
+            CompletableFuture<Boolean> reconnection = new CompletableFuture<>();
+            this.reconnection = reconnection;
+            reconnection.thenAccept(reconnected -> {
+                if (reconnected) {
+                    log.info("Client has reconnected to server successfully.");
+                } else {
+                    bucketReconnect(i);
+                }
+            });
+
+            if (connectTimeout > 0) {
+                Scheduler.schedule(() -> {
+                    if (reconnection.isDone())
+                        return;
+
+                    closeConnection(CloseFrame.NEVER_CONNECTED, "The connection was not opened within " + connectTimeout + " milliseconds.");
+                    reconnection.complete(false);
+                }, connectTimeout, TimeUnit.MILLISECONDS);
             }
 
-            isConnected = true;
-            reconnecting = false;
-            log.info("Client has reconnected to server successfully.");
-        } catch (InterruptedException e) {
-            log.error("Failed to connect to {}: {}", uri.toString(), e.getMessage());
-            bucketReconnect(i);
-        }
+            try {
+                reconnect();
+            } catch (RuntimeException e) {
+                log.error("Failed to connect to {}: {}", uri.toString(), e.getMessage());
+                reconnection.complete(false);
+            }
+        }, i.get(), TimeUnit.SECONDS);
     }
 
     @Override
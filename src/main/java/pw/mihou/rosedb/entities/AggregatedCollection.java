@@ -3,152 +3,75 @@ package pw.mihou.rosedb.entities;
 import org.json.JSONObject;
 import pw.mihou.rosedb.enums.FilterCasing;
 import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.filters.DocumentFilter;
 import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.utility.JsonScanner;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class AggregatedCollection {
 
-    private final Map<String, RoseItem> data = new HashMap<>();
+    private final Map<String, RoseItem> data;
     private final String name;
+    private final Map<String, HashIndex> hashIndexes = new ConcurrentHashMap<>();
+    private final Map<String, SortedIndex> sortedIndexes = new ConcurrentHashMap<>();
 
     public AggregatedCollection(String name, JSONObject o){
         this.name = name;
+        this.data = new HashMap<>();
         o.keySet().forEach(s -> data.put(s, new RoseItem(o.getString(s))));
     }
 
-    public AggregatedCollection(String name, JSONObject o, String key, String value, FilterCasing casing){
+    /**
+     * Decodes and filters the documents of the collection in parallel, the collection is split
+     * into ranges of documents which are processed on the pool and merged afterwards, small
+     * collections are processed on the calling thread instead.
+     * @param name the name of the collection.
+     * @param aggregation the raw aggregation from the server.
+     * @param filter the filter the documents must match.
+     * @param pool the pool to process the documents on.
+     */
+    public AggregatedCollection(String name, String aggregation, DocumentFilter filter, ForkJoinPool pool){
+        this(name, AggregationTask.collect(aggregation, JsonScanner.find(aggregation, 0, name), filter, pool));
+    }
+
+    AggregatedCollection(String name, Map<String, RoseItem> data){
         this.name = name;
-        o.keySet().forEach(s -> {
-            RoseItem y = new RoseItem(o.getString(s));
-            JSONObject x = y.asJSONObject();
-            if(!x.isNull(key)) {
-                if (casing == FilterCasing.IGNORE_CASING) {
-                    if (value.equalsIgnoreCase(x.getString(key))) {
-                        data.put(s, y);
-                    }
-                } else if(casing == FilterCasing.STRICT){
-                    if (value.equals(x.getString(key))) {
-                        data.put(s, y);
-                    }
-                } else if(casing == FilterCasing.IS_NOT_EQUALS_STRICT){
-                    if (!value.equals(x.getString(key))) {
-                        data.put(s, y);
-                    }
-                } else if(casing == FilterCasing.IS_NOT_EQUALS_RELAXED){
-                    if (!value.equalsIgnoreCase(x.getString(key))) {
-                        data.put(s, y);
-                    }
-                }
-            }
-        });
+        this.data = data;
     }
 
-    public AggregatedCollection(String name, JSONObject o, String key, int value, NumberFilter filter){
+    public AggregatedCollection(String name, JSONObject o, DocumentFilter filter){
         this.name = name;
+        this.data = new HashMap<>();
         o.keySet().forEach(s -> {
-            RoseItem y = new RoseItem(o.getString(s));
-            JSONObject x = y.asJSONObject();
-            if(!x.isNull(key)) {
-                if(filter == NumberFilter.EQUALS) {
-                    if (x.getInt(key) == value) {
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.GREATER_THAN){
-                    if(x.getInt(key) > value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.LESS_THAN){
-                    if(x.getInt(key) < value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.GREATER_OR_EQUALS){
-                    if(x.getInt(key) >= value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.LESS_OR_EQUALS){
-                    if(x.getInt(key) <= value){
-                        data.put(s, y);
-                    }
-                }
+            String document = o.getString(s);
+            if (filter.test(document)) {
+                data.put(s, new RoseItem(document));
             }
         });
     }
 
+    public AggregatedCollection(String name, JSONObject o, String key, String value, FilterCasing casing){
+        this(name, o, DocumentFilter.of(key, value, casing));
+    }
+
+    public AggregatedCollection(String name, JSONObject o, String key, int value, NumberFilter filter){
+        this(name, o, DocumentFilter.of(key, (long) value, filter));
+    }
+
     public AggregatedCollection(String name, JSONObject o, String key, long value, NumberFilter filter){
-        this.name = name;
-        o.keySet().forEach(s -> {
-            RoseItem y = new RoseItem(o.getString(s));
-            JSONObject x = y.asJSONObject();
-            if(!x.isNull(key)) {
-                if(filter == NumberFilter.EQUALS) {
-                    if (x.getLong(key) == value) {
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.GREATER_THAN){
-                    if(x.getLong(key) > value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.LESS_THAN){
-                    if(x.getLong(key) < value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.GREATER_OR_EQUALS){
-                    if(x.getLong(key) >= value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.LESS_OR_EQUALS){
-                    if(x.getLong(key) <= value){
-                        data.put(s, y);
-                    }
-                }
-            }
-        });
+        this(name, o, DocumentFilter.of(key, value, filter));
     }
 
     public AggregatedCollection(String name, JSONObject o, String key, double value, NumberFilter filter){
-        this.name = name;
-        o.keySet().forEach(s -> {
-            RoseItem y = new RoseItem(o.getString(s));
-            JSONObject x = y.asJSONObject();
-            if(!x.isNull(key)) {
-                if(filter == NumberFilter.EQUALS) {
-                    if (x.getDouble(key) == value) {
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.GREATER_THAN){
-                    if(x.getDouble(key) > value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.LESS_THAN){
-                    if(x.getDouble(key) < value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.GREATER_OR_EQUALS){
-                    if(x.getDouble(key) >= value){
-                        data.put(s, y);
-                    }
-                } else if(filter == NumberFilter.LESS_OR_EQUALS){
-                    if(x.getDouble(key) <= value){
-                        data.put(s, y);
-                    }
-                }
-            }
-        });
+        this(name, o, DocumentFilter.of(key, value, filter));
     }
 
     public <T> AggregatedCollection(String name, JSONObject o, String key, T value){
-        this.name = name;
-        o.keySet().forEach(s -> {
-            RoseItem y = new RoseItem(o.getString(s));
-            JSONObject x = y.asJSONObject();
-            if(!x.isNull(key)) {
-                if (x.get(key) == (T) value) {
-                    data.put(s, y);
-                }
-            }
-        });
+        this(name, o, DocumentFilter.of(key, value));
     }
 
     /**
@@ -169,4 +92,26 @@ public class AggregatedCollection {
         return data;
     }
 
+    /**
+     * Returns a hash index over the key which answers equality filters without scanning
+     * the documents, the index is built the first time it is requested and reused afterwards,
+     * please note that the index does not see changes made to the data after it was built.
+     * @param key the key to index, nested keys are separated by dots.
+     * @return the hash index over the key.
+     */
+    public HashIndex getHashIndex(String key){
+        return hashIndexes.computeIfAbsent(key, k -> new HashIndex(this, k));
+    }
+
+    /**
+     * Returns a sorted index over the numeric values of the key which answers number filters
+     * with a binary search, the index is built the first time it is requested and reused afterwards,
+     * please note that the index does not see changes made to the data after it was built.
+     * @param key the key to index, nested keys are separated by dots.
+     * @return the sorted index over the key.
+     */
+    public SortedIndex getSortedIndex(String key){
+        return sortedIndexes.computeIfAbsent(key, k -> new SortedIndex(this, k));
+    }
+
 }
@@ -3,9 +3,13 @@ package pw.mihou.rosedb.entities;
 import org.json.JSONObject;
 import pw.mihou.rosedb.enums.FilterCasing;
 import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.filters.DocumentFilter;
+import pw.mihou.rosedb.utility.JsonScanner;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class AggregatedDatabase {
 
@@ -17,34 +21,66 @@ public class AggregatedDatabase {
         o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s))));
     }
 
-    public AggregatedDatabase(String name, JSONObject o, String key, String value, FilterCasing casing){
+    /**
+     * Decodes and filters every collection of the database in parallel, each collection
+     * is processed as its own task on the pool and large collections are further split
+     * into ranges of documents.
+     * @param name the name of the database.
+     * @param aggregation the raw aggregation from the server.
+     * @param filter the filter the documents must match.
+     * @param pool the pool to process the collections on.
+     */
+    public AggregatedDatabase(String name, String aggregation, DocumentFilter filter, ForkJoinPool pool){
         this.name = name;
-        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), key, value, casing)));
+        int at = JsonScanner.find(aggregation, 0, name);
+        if (at < 0)
+            return;
+
+        int[] members = JsonScanner.members(aggregation, at);
+        List<ForkJoinTask<AggregatedCollection>> tasks = new ArrayList<>(members.length / 2);
+        for (int i = 0; i < members.length; i += 2) {
+            String collection = JsonScanner.readString(aggregation, members[i]);
+            int position = members[i + 1];
+            tasks.add(ForkJoinTask.adapt(() -> new AggregatedCollection(collection,
+                    AggregationTask.collect(aggregation, position, filter, pool))));
+        }
+
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+
+        tasks.forEach(task -> collectionList.add(task.join()));
     }
 
-    public AggregatedDatabase(String name, JSONObject o, String key, int value, NumberFilter filter){
+    public AggregatedDatabase(String name, JSONObject o, DocumentFilter filter){
         this.name = name;
-        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), key, value, filter)));
+        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), filter)));
+    }
+
+    public AggregatedDatabase(String name, JSONObject o, String key, String value, FilterCasing casing){
+        this(name, o, DocumentFilter.of(key, value, casing));
+    }
+
+    public AggregatedDatabase(String name, JSONObject o, String key, int value, NumberFilter filter){
+        this(name, o, DocumentFilter.of(key, (long) value, filter));
     }
 
     public AggregatedDatabase(String name, JSONObject o, String key, long value, NumberFilter filter){
-        this.name = name;
-        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), key, value, filter)));
+        this(name, o, DocumentFilter.of(key, value, filter));
     }
 
     public AggregatedDatabase(String name, JSONObject o, String key, double value, NumberFilter filter){
-        this.name = name;
-        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), key, value, filter)));
+        this(name, o, DocumentFilter.of(key, value, filter));
     }
 
     public AggregatedDatabase(String name, JSONObject o, String key, boolean value){
-        this.name = name;
-        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), key, value)));
+        this(name, o, DocumentFilter.of(key, value));
     }
 
     public <T> AggregatedDatabase(String name, JSONObject o, String key, T value){
-        this.name = name;
-        o.keySet().forEach(s -> collectionList.add(new AggregatedCollection(s, o.getJSONObject(s), key, value)));
+        this(name, o, DocumentFilter.of(key, value));
     }
 
     /**
@@ -0,0 +1,94 @@
+package pw.mihou.rosedb.entities;
+
+import pw.mihou.rosedb.filters.DocumentFilter;
+import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.utility.JsonScanner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Decodes and filters a range of the documents of a collection, ranges that are too large
+ * are split in half and processed in parallel, each half fills its own map which are merged
+ * once both halves are done, no locks are involved.
+ */
+class AggregationTask extends RecursiveTask<Map<String, RoseItem>> {
+
+    /**
+     * The amount of documents below which a range is no longer split.
+     */
+    static final int THRESHOLD = 512;
+
+    private final String json;
+    private final int[] members;
+    private final int from;
+    private final int to;
+    private final DocumentFilter filter;
+
+    /**
+     * Creates a task over the documents of a collection.
+     * @param json the raw aggregation.
+     * @param members the members of the collection, see {@link JsonScanner#members(String, int)}.
+     * @param from the first document of the range.
+     * @param to the document right after the range.
+     * @param filter the filter the documents must match.
+     */
+    AggregationTask(String json, int[] members, int from, int to, DocumentFilter filter){
+        this.json = json;
+        this.members = members;
+        this.from = from;
+        this.to = to;
+        this.filter = filter;
+    }
+
+    /**
+     * Decodes and filters every document of the collection, the pool is only
+     * used when the collection is large enough to be worth splitting.
+     * @param json the raw aggregation.
+     * @param at the position of the collection inside the aggregation.
+     * @param filter the filter the documents must match.
+     * @param pool the pool to split the work on.
+     * @return the documents that match the filter.
+     */
+    static Map<String, RoseItem> collect(String json, int at, DocumentFilter filter, ForkJoinPool pool){
+        if (at < 0)
+            return new HashMap<>();
+
+        int[] members = JsonScanner.members(json, at);
+        AggregationTask task = new AggregationTask(json, members, 0, members.length / 2, filter);
+        if (members.length / 2 <= THRESHOLD || getPool() == pool)
+            return task.compute();
+
+        return pool.invoke(task);
+    }
+
+    @Override
+    protected Map<String, RoseItem> compute() {
+        if (to - from <= THRESHOLD) {
+            Map<String, RoseItem> data = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                int value = members[i * 2 + 1];
+                String document = JsonScanner.isString(json, value) ? JsonScanner.readString(json, value)
+                        : json.substring(value, JsonScanner.skipValue(json, value));
+
+                if (filter.test(document)) {
+                    data.put(JsonScanner.readString(json, members[i * 2]), new RoseItem(document));
+                }
+            }
+
+            return data;
+        }
+
+        int middle = (from + to) >>> 1;
+        AggregationTask left = new AggregationTask(json, members, from, middle, filter);
+        left.fork();
+
+        Map<String, RoseItem> right = new AggregationTask(json, members, middle, to, filter).compute();
+        Map<String, RoseItem> data = left.join();
+        data.putAll(right);
+        return data;
+    }
+
+}
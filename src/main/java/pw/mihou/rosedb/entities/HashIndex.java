@@ -0,0 +1,166 @@
+package pw.mihou.rosedb.entities;
+
+import pw.mihou.rosedb.enums.FilterCasing;
+import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.utility.JsonScanner;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index that groups the items of an aggregated collection by the value of a key,
+ * equality filters against the index are answered without looking at any of the documents.
+ * The index is a snapshot of the collection at the time it was built.
+ *
+ * <p>Numbers are matched the same way as the filters that scan the documents: long values
+ * match integral values exactly and fractions once truncated, double values match the
+ * values compared as doubles.</p>
+ */
+public class HashIndex {
+
+    private final String name;
+    private final String key;
+    private final Map<Object, Map<String, RoseItem>> values = new HashMap<>();
+    private final Map<Long, Map<String, RoseItem>> longs = new HashMap<>();
+    private final Map<Double, Map<String, RoseItem>> doubles = new HashMap<>();
+    private final int distinct;
+    private final Map<String, Map<String, RoseItem>> lowercase = new HashMap<>();
+    private final Map<String, RoseItem> strings = new HashMap<>();
+
+    /**
+     * Builds a hash index over the key of every item in the collection.
+     * @param collection the collection to index.
+     * @param key the key to index, nested keys are separated by dots.
+     */
+    public HashIndex(AggregatedCollection collection, String key){
+        this.name = collection.getCollectionName();
+        this.key = key;
+
+        String[] path = key.split("\\.");
+        Set<Object> numbers = new HashSet<>();
+        collection.getData().forEach((identifier, item) -> {
+            String document = item.getRaw();
+            int at = JsonScanner.find(document, path);
+            if (at < 0)
+                return;
+
+            if (JsonScanner.isString(document, at)) {
+                String value = JsonScanner.readString(document, at);
+                strings.put(identifier, item);
+                values.computeIfAbsent(value, v -> new HashMap<>()).put(identifier, item);
+                lowercase.computeIfAbsent(value.toLowerCase(Locale.ROOT), v -> new HashMap<>()).put(identifier, item);
+            }
+
+            if (JsonScanner.isNumber(document, at)) {
+                try {
+                    long whole;
+                    double value;
+                    if (JsonScanner.isIntegral(document, at)) {
+                        whole = JsonScanner.readLong(document, at);
+                        value = whole;
+                        numbers.add(whole);
+                    } else {
+                        value = JsonScanner.readDouble(document, at) + 0.0;
+                        whole = (long) value;
+                        numbers.add(normalize(value));
+                    }
+
+                    longs.computeIfAbsent(whole, v -> new HashMap<>()).put(identifier, item);
+                    if (!Double.isNaN(value))
+                        doubles.computeIfAbsent(value, v -> new HashMap<>()).put(identifier, item);
+                } catch (NumberFormatException ignored) {
+                    // A string that only starts like a number, it is already indexed as a string.
+                }
+            } else if (JsonScanner.booleanEquals(document, at, true) || JsonScanner.booleanEquals(document, at, false)) {
+                values.computeIfAbsent(JsonScanner.booleanEquals(document, at, true), v -> new HashMap<>()).put(identifier, item);
+            }
+        });
+
+        this.distinct = values.size() + numbers.size();
+    }
+
+    /**
+     * Finds all the items whose value of the key matches the string.
+     * @param value the value to search for.
+     * @param casing whether to ignore casing or not.
+     * @return Filtered Aggregated Collection.
+     */
+    public AggregatedCollection filter(String value, FilterCasing casing){
+        switch (casing) {
+            case STRICT:
+                return collection(values.get(value));
+            case IGNORE_CASING:
+                return collection(lowercase.get(value.toLowerCase(Locale.ROOT)));
+            case IS_NOT_EQUALS_STRICT:
+                return without(values.get(value));
+            case IS_NOT_EQUALS_RELAXED:
+                return without(lowercase.get(value.toLowerCase(Locale.ROOT)));
+            default:
+                return collection(null);
+        }
+    }
+
+    /**
+     * Finds all the items whose value of the key is equal to the value,
+     * booleans, numbers and strings are supported.
+     * @param value the value to search for.
+     * @param <T> the type of the value.
+     * @return Filtered Aggregated Collection.
+     */
+    public <T> AggregatedCollection filter(T value){
+        if (value instanceof Boolean || value instanceof CharSequence || value instanceof Character)
+            return collection(values.get(value instanceof Boolean ? value : value.toString()));
+
+        if (value instanceof Double || value instanceof Float)
+            return collection(doubles.get(((Number) value).doubleValue() + 0.0));
+
+        if (value instanceof Number)
+            return collection(longs.get(((Number) value).longValue()));
+
+        return collection(null);
+    }
+
+    /**
+     * Returns the key that is indexed.
+     * @return the indexed key.
+     */
+    public String getKey(){
+        return key;
+    }
+
+    /**
+     * Returns the amount of distinct values of the key, values that are
+     * both a string and a number are counted twice.
+     * @return the amount of distinct values.
+     */
+    public int getDistinctValues(){
+        return distinct;
+    }
+
+    private AggregatedCollection collection(Map<String, RoseItem> items){
+        return new AggregatedCollection(name, items == null ? new HashMap<>() : new HashMap<>(items));
+    }
+
+    private AggregatedCollection without(Map<String, RoseItem> items){
+        Map<String, RoseItem> data = new HashMap<>(strings);
+        if (items != null)
+            data.keySet().removeAll(items.keySet());
+
+        return new AggregatedCollection(name, data);
+    }
+
+    /**
+     * Whole numbers are counted as longs regardless of how they were written
+     * which counts 1 and 1.0 as the same value.
+     */
+    private static Object normalize(double value){
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE)
+            return (long) value;
+
+        return value;
+    }
+
+}
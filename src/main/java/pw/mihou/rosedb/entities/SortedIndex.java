@@ -0,0 +1,275 @@
+package pw.mihou.rosedb.entities;
+
+import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.utility.JsonScanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index that sorts the items of an aggregated collection by the numeric value of a key,
+ * range filters against the index are answered with a binary search instead of looking
+ * at every document. The index is a snapshot of the collection at the time it was built.
+ *
+ * <p>The index answers filters the same way as the filters that scan the documents: long
+ * filters compare integral values exactly and truncate fractions, double filters compare
+ * the values as doubles.</p>
+ */
+public class SortedIndex {
+
+    private final String name;
+    private final String key;
+    private final long[] longs;
+    private final double[] doubles;
+    private final String[] identifiers;
+    private final RoseItem[] items;
+
+    /**
+     * Builds a sorted index over the key of every item in the collection, items whose
+     * value of the key is not a number are left out of the index.
+     * @param collection the collection to index.
+     * @param key the key to index, nested keys are separated by dots.
+     */
+    public SortedIndex(AggregatedCollection collection, String key){
+        this.name = collection.getCollectionName();
+        this.key = key;
+
+        String[] path = key.split("\\.");
+        int capacity = collection.getData().size();
+        List<Map.Entry<String, RoseItem>> entries = new ArrayList<>(capacity);
+        long[] wholes = new long[capacity];
+        double[] numbers = new double[capacity];
+        boolean[] integrals = new boolean[capacity];
+        collection.getData().forEach((identifier, item) -> {
+            String document = item.getRaw();
+            int at = JsonScanner.find(document, path);
+            if (at < 0 || !JsonScanner.isNumber(document, at))
+                return;
+
+            int index = entries.size();
+            if (JsonScanner.isIntegral(document, at)) {
+                wholes[index] = JsonScanner.readLong(document, at);
+                numbers[index] = wholes[index];
+                integrals[index] = true;
+                entries.add(Map.entry(identifier, item));
+                return;
+            }
+
+            try {
+                // Adding zero turns negative zero into zero, which keeps the order consistent with the longs.
+                double value = JsonScanner.readDouble(document, at) + 0.0;
+                if (!Double.isNaN(value)) {
+                    wholes[index] = (long) value;
+                    numbers[index] = value;
+                    entries.add(Map.entry(identifier, item));
+                }
+            } catch (NumberFormatException ignored) {
+                // A string that only starts like a number is not indexed.
+            }
+        });
+
+        // Ordering by the exact values keeps both the truncated longs and the doubles sorted.
+        Integer[] order = new Integer[entries.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> {
+            if (integrals[a] && integrals[b])
+                return Long.compare(wholes[a], wholes[b]);
+
+            if (integrals[a])
+                return -compare(numbers[b], wholes[a]);
+
+            if (integrals[b])
+                return compare(numbers[a], wholes[b]);
+
+            return Double.compare(numbers[a], numbers[b]);
+        });
+
+        this.longs = new long[order.length];
+        this.doubles = new double[order.length];
+        this.identifiers = new String[order.length];
+        this.items = new RoseItem[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Map.Entry<String, RoseItem> entry = entries.get(order[i]);
+            longs[i] = wholes[order[i]];
+            doubles[i] = numbers[order[i]];
+            identifiers[i] = entry.getKey();
+            items[i] = entry.getValue();
+        }
+    }
+
+    /**
+     * Finds all the items whose value of the key satisfies the filter.
+     * @param value the value to compare with.
+     * @param filter the filter to use.
+     * @return Filtered Aggregated Collection.
+     */
+    public AggregatedCollection filter(double value, NumberFilter filter){
+        if (Double.isNaN(value))
+            return range(0, 0);
+
+        return filter(lowerBound(value), upperBound(value), filter);
+    }
+
+    /**
+     * Finds all the items whose value of the key satisfies the filter, fractions
+     * are truncated before they are compared with the value.
+     * @param value the value to compare with.
+     * @param filter the filter to use.
+     * @return Filtered Aggregated Collection.
+     */
+    public AggregatedCollection filter(long value, NumberFilter filter){
+        return filter(lowerBound(value), upperBound(value), filter);
+    }
+
+    /**
+     * Finds all the items whose value of the key is between the two values, both ends are inclusive.
+     * @param minimum the lowest value.
+     * @param maximum the highest value.
+     * @return Filtered Aggregated Collection.
+     */
+    public AggregatedCollection between(double minimum, double maximum){
+        if (Double.isNaN(minimum) || Double.isNaN(maximum))
+            return range(0, 0);
+
+        return range(lowerBound(minimum), upperBound(maximum));
+    }
+
+    /**
+     * Returns the key that is indexed.
+     * @return the indexed key.
+     */
+    public String getKey(){
+        return key;
+    }
+
+    /**
+     * Returns the amount of items inside the index.
+     * @return the amount of indexed items.
+     */
+    public int size(){
+        return items.length;
+    }
+
+    private AggregatedCollection range(int from, int to){
+        Map<String, RoseItem> data = new HashMap<>(Math.max(16, (int) ((to - from) / 0.75f) + 1));
+        for (int i = from; i < to; i++) {
+            data.put(identifiers[i], items[i]);
+        }
+
+        return new AggregatedCollection(name, data);
+    }
+
+    /**
+     * Picks the range of the filter out of the positions where the items equal to the value start and end.
+     */
+    private AggregatedCollection filter(int lower, int upper, NumberFilter filter){
+        switch (filter) {
+            case EQUALS:
+                return range(lower, upper);
+            case GREATER_THAN:
+                return range(upper, items.length);
+            case GREATER_OR_EQUALS:
+                return range(lower, items.length);
+            case LESS_THAN:
+                return range(0, lower);
+            case LESS_OR_EQUALS:
+                return range(0, upper);
+            default:
+                return range(0, 0);
+        }
+    }
+
+    /**
+     * Finds the first position whose value is greater than or equal to the value.
+     */
+    private int lowerBound(double value){
+        int low = 0;
+        int high = doubles.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (doubles[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the first position whose value is greater than the value.
+     */
+    private int upperBound(double value){
+        int low = 0;
+        int high = doubles.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (doubles[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the first position whose truncated value is greater than or equal to the value.
+     */
+    private int lowerBound(long value){
+        int low = 0;
+        int high = longs.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (longs[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the first position whose truncated value is greater than the value.
+     */
+    private int upperBound(long value){
+        int low = 0;
+        int high = longs.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (longs[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compares a double with a long exactly, without widening the long into a double.
+     */
+    private static int compare(double value, long other){
+        if (value >= 0x1p63)
+            return 1;
+
+        if (value < -0x1p63)
+            return -1;
+
+        long truncated = (long) value;
+        if (truncated != other)
+            return Long.compare(truncated, other);
+
+        return Double.compare(value, truncated);
+    }
+
+}
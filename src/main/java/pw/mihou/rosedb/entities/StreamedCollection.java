@@ -0,0 +1,148 @@
+package pw.mihou.rosedb.entities;
+
+import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.payloads.RosePayload;
+import pw.mihou.rosedb.utility.CollectionReader;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class StreamedCollection implements Flow.Publisher<Map.Entry<String, RoseItem>> {
+
+    private final String name;
+    private final Supplier<CompletableFuture<RosePayload>> aggregation;
+
+    /**
+     * Creates a publisher that emits the items of a collection one by one, every
+     * subscription retrieves the collection and the items are only decoded once
+     * the subscriber has requested them.
+     * @param name the name of the collection.
+     * @param aggregation the supplier that retrieves the collection.
+     */
+    public StreamedCollection(String name, Supplier<CompletableFuture<RosePayload>> aggregation){
+        this.name = name;
+        this.aggregation = aggregation;
+    }
+
+    /**
+     * Returns the collection's name.
+     * @return the collection name.
+     */
+    public String getCollectionName(){
+        return name;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Map.Entry<String, RoseItem>> subscriber) {
+        StreamedSubscription subscription = new StreamedSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled)
+            return;
+
+        aggregation.get().whenComplete((payload, throwable) -> {
+            if (throwable != null) {
+                subscription.fail(throwable);
+                return;
+            }
+
+            try {
+                subscription.start(new CollectionReader(payload.getRaw(), name));
+            } catch (RuntimeException e) {
+                subscription.fail(e);
+            }
+        });
+    }
+
+    private static class StreamedSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Map.Entry<String, RoseItem>> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile CollectionReader reader;
+        private volatile boolean cancelled = false;
+        private boolean done = false;
+
+        private StreamedSubscription(Flow.Subscriber<? super Map.Entry<String, RoseItem>> subscriber){
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("The amount of requested items must be positive."));
+                return;
+            }
+
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            reader = null;
+        }
+
+        private void start(CollectionReader reader){
+            if (cancelled)
+                return;
+
+            this.reader = reader;
+            drain();
+        }
+
+        private void fail(Throwable throwable){
+            if (error.compareAndSet(null, throwable))
+                drain();
+        }
+
+        /**
+         * Emits as many items as were requested followed by the completion or the error,
+         * only one thread signals the subscriber at a time and requests or errors that arrive
+         * while it does are picked up by the thread that is signalling.
+         */
+        private void drain(){
+            if (wip.getAndIncrement() != 0)
+                return;
+
+            do {
+                if (done || cancelled)
+                    continue;
+
+                if (error.get() != null) {
+                    done = true;
+                    subscriber.onError(error.get());
+                    continue;
+                }
+
+                CollectionReader current = reader;
+                if (current == null)
+                    continue;
+
+                try {
+                    while (demand.get() > 0 && !cancelled && error.get() == null && current.hasNext()) {
+                        subscriber.onNext(current.next());
+                        demand.decrementAndGet();
+                    }
+
+                    // An error that arrived while emitting is signalled by the next pass instead of the completion.
+                    if (!cancelled && error.get() == null && !current.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                    }
+                } catch (RuntimeException e) {
+                    if (error.compareAndSet(null, e))
+                        wip.incrementAndGet();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,7 @@
+package pw.mihou.rosedb.enums;
+
+public enum RejectionPolicy {
+
+    ABORT, BLOCK;
+
+}
@@ -0,0 +1,7 @@
+package pw.mihou.rosedb.enums;
+
+public enum ReplayPolicy {
+
+    NONE, READS, IDEMPOTENT;
+
+}
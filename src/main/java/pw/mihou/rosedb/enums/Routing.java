@@ -0,0 +1,7 @@
+package pw.mihou.rosedb.enums;
+
+public enum Routing {
+
+    LEAST_IN_FLIGHT, ROUND_ROBIN;
+
+}
@@ -0,0 +1,15 @@
+package pw.mihou.rosedb.exceptions;
+
+public class RejectedRequestException extends Exception {
+
+    /**
+     * This is thrown whenever every connection has reached its maximum
+     * amount of requests in flight and the queue of waiting requests
+     * is also full, try again later or increase the limits on RoseBuilder.
+     * @param message the reason of the rejection.
+     */
+    public RejectedRequestException(String message){
+        super(message);
+    }
+
+}
@@ -0,0 +1,18 @@
+package pw.mihou.rosedb.exceptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class RequestTimeoutException extends TimeoutException {
+
+    /**
+     * This is thrown whenever the deadline of a request has passed before
+     * the server replied to it, the server may be slow or unreachable and
+     * the request may still have been applied on its end.
+     * @param timeout the deadline of the request, in nanoseconds.
+     */
+    public RequestTimeoutException(long timeout){
+        super("The server did not reply within " + TimeUnit.NANOSECONDS.toMillis(timeout) + " milliseconds.");
+    }
+
+}
@@ -0,0 +1,155 @@
+package pw.mihou.rosedb.filters;
+
+import pw.mihou.rosedb.enums.FilterCasing;
+import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.utility.JsonScanner;
+
+@FunctionalInterface
+public interface DocumentFilter {
+
+    /**
+     * Tests the raw document against the filter, implementations should only
+     * read the fields they need instead of parsing the entire document.
+     * @param document the raw JSON document.
+     * @return whether the document matches the filter.
+     */
+    boolean test(String document);
+
+    /**
+     * A filter that matches every document.
+     * @return a filter that matches everything.
+     */
+    static DocumentFilter all(){
+        return document -> true;
+    }
+
+    /**
+     * A filter that compares a string field of the document with the value.
+     * @param key the key to check.
+     * @param value the value to compare with.
+     * @param casing how to compare the values.
+     * @return the filter.
+     */
+    static DocumentFilter of(String key, String value, FilterCasing casing){
+        return document -> {
+            int at = JsonScanner.find(document, 0, key);
+            if (at < 0 || !JsonScanner.isString(document, at))
+                return false;
+
+            switch (casing) {
+                case IGNORE_CASING:
+                    return JsonScanner.stringEquals(document, at, value, true);
+                case STRICT:
+                    return JsonScanner.stringEquals(document, at, value, false);
+                case IS_NOT_EQUALS_STRICT:
+                    return !JsonScanner.stringEquals(document, at, value, false);
+                case IS_NOT_EQUALS_RELAXED:
+                    return !JsonScanner.stringEquals(document, at, value, true);
+                default:
+                    return false;
+            }
+        };
+    }
+
+    /**
+     * A filter that compares a numeric field of the document with the value.
+     * @param key the key to check.
+     * @param value the value to compare with.
+     * @param filter how to compare the values.
+     * @return the filter.
+     */
+    static DocumentFilter of(String key, long value, NumberFilter filter){
+        return document -> {
+            int at = JsonScanner.find(document, 0, key);
+            if (at < 0 || !JsonScanner.isNumber(document, at))
+                return false;
+
+            try {
+                if (JsonScanner.isIntegral(document, at))
+                    return compare(Long.compare(JsonScanner.readLong(document, at), value), filter);
+
+                return compare(Long.compare((long) JsonScanner.readDouble(document, at), value), filter);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * A filter that compares a numeric field of the document with the value.
+     * @param key the key to check.
+     * @param value the value to compare with.
+     * @param filter how to compare the values.
+     * @return the filter.
+     */
+    static DocumentFilter of(String key, double value, NumberFilter filter){
+        return document -> {
+            int at = JsonScanner.find(document, 0, key);
+            if (at < 0 || !JsonScanner.isNumber(document, at))
+                return false;
+
+            try {
+                double actual = JsonScanner.readDouble(document, at);
+                if (Double.isNaN(actual) || Double.isNaN(value))
+                    return false;
+
+                return compare(actual == value ? 0 : (actual < value ? -1 : 1), filter);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * A filter that checks whether a field of the document is equal to the value,
+     * booleans, numbers and strings are supported.
+     * @param key the key to check.
+     * @param value the value to compare with.
+     * @param <T> the type of the value.
+     * @return the filter.
+     */
+    static <T> DocumentFilter of(String key, T value){
+        if (value instanceof Boolean) {
+            boolean expected = (Boolean) value;
+            return document -> {
+                int at = JsonScanner.find(document, 0, key);
+                return at >= 0 && JsonScanner.booleanEquals(document, at, expected);
+            };
+        }
+
+        if (value instanceof Double || value instanceof Float)
+            return of(key, ((Number) value).doubleValue(), NumberFilter.EQUALS);
+
+        if (value instanceof Number)
+            return of(key, ((Number) value).longValue(), NumberFilter.EQUALS);
+
+        if (value instanceof CharSequence || value instanceof Character)
+            return of(key, value.toString(), FilterCasing.STRICT);
+
+        return document -> false;
+    }
+
+    /**
+     * Checks the result of a comparison against the number filter.
+     * @param comparison the result of comparing the field with the value.
+     * @param filter the number filter.
+     * @return whether the comparison satisfies the filter.
+     */
+    static boolean compare(int comparison, NumberFilter filter){
+        switch (filter) {
+            case EQUALS:
+                return comparison == 0;
+            case GREATER_THAN:
+                return comparison > 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case GREATER_OR_EQUALS:
+                return comparison >= 0;
+            case LESS_OR_EQUALS:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package pw.mihou.rosedb.impl;
+
+import pw.mihou.rosedb.exceptions.FileModificationException;
+import pw.mihou.rosedb.io.Request;
+import pw.mihou.rosedb.io.Scheduler;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class AutoBatcher {
+
+    private final long window;
+    private final int maxOperations;
+    private List<Operation> operations = new ArrayList<>();
+    private ScheduledFuture<?> flush;
+
+    /**
+     * Creates a new auto batcher which coalesces the writes that are made within the
+     * window into a single batch, a batch is sent early once it reaches the maximum size.
+     * @param window the window in nanoseconds.
+     * @param maxOperations the maximum amount of writes in a single batch.
+     */
+    public AutoBatcher(long window, int maxOperations){
+        this.window = window;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * Adds the write to the current batch, the returned future is completed
+     * on its own once the reply for the batch has arrived.
+     * @param driver the driver, or view of it, whose deadline the write has.
+     * @param request the request.
+     * @return the reply of this write.
+     */
+    public CompletableFuture<RosePayload> submit(RoseDriverImpl driver, Request request){
+        Operation operation = new Operation(driver, request);
+        List<Operation> ready = null;
+
+        synchronized (this) {
+            operations.add(operation);
+            if (operations.size() >= maxOperations) {
+                ready = detach();
+            } else if (operations.size() == 1) {
+                flush = Scheduler.schedule(this::flush, window, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (ready != null)
+            send(ready);
+
+        return operation.future;
+    }
+
+    /**
+     * Sends the current batch regardless of its size.
+     */
+    public void flush(){
+        List<Operation> ready;
+        synchronized (this) {
+            ready = detach();
+        }
+
+        if (!ready.isEmpty())
+            send(ready);
+    }
+
+    private List<Operation> detach(){
+        List<Operation> ready = operations;
+        operations = new ArrayList<>();
+        if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+        }
+
+        return ready;
+    }
+
+    private void send(List<Operation> ready){
+        List<Request> requests = new ArrayList<>(ready.size());
+        RoseDriverImpl driver = ready.get(0).driver;
+        for (Operation operation : ready) {
+            requests.add(operation.request);
+            if (operation.driver.getRequestTimeout() > driver.getRequestTimeout())
+                driver = operation.driver;
+        }
+
+        // The batch has the longest deadline of its writes, the writes with a shorter one fail on their own.
+        long timeout = driver.getRequestTimeout();
+        for (Operation operation : ready) {
+            if (operation.driver.getRequestTimeout() < timeout)
+                operation.expire();
+        }
+
+        driver.batch(requests).whenComplete((payloads, throwable) -> {
+            for (int i = 0; i < ready.size(); i++) {
+                CompletableFuture<RosePayload> future = ready.get(i).future;
+                if (throwable != null) {
+                    future.completeExceptionally(throwable);
+                } else if (payloads.get(i).getKode() != 1) {
+                    future.completeExceptionally(new FileModificationException(payloads.get(i).getRaw()));
+                } else {
+                    future.complete(payloads.get(i));
+                }
+            }
+        });
+    }
+
+    private static class Operation {
+
+        private final RoseDriverImpl driver;
+        private final Request request;
+        private final long deadline;
+        private final CompletableFuture<RosePayload> future = new CompletableFuture<>();
+
+        private Operation(RoseDriverImpl driver, Request request){
+            this.driver = driver;
+            this.request = request;
+            this.deadline = System.nanoTime() + driver.getRequestTimeout();
+        }
+
+        /**
+         * Fails the write once its own deadline has passed.
+         */
+        private void expire(){
+            driver.expire(future, deadline, driver.getRequestTimeout());
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package pw.mihou.rosedb.impl;
+
+import org.json.JSONObject;
+import pw.mihou.rosedb.RoseBatch;
+import pw.mihou.rosedb.io.Request;
+import pw.mihou.rosedb.payloads.RosePayload;
+import pw.mihou.rosedb.utility.RoseUtility;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class RoseBatchImpl implements RoseBatch {
+
+    private final RoseDriverImpl driver;
+    private final List<Request> requests = new ArrayList<>();
+
+    public RoseBatchImpl(RoseDriverImpl driver){
+        this.driver = driver;
+    }
+
+    @Override
+    public RoseBatch get(String database, String collection, String identifier) {
+        return append(new Request("get", database).collection(collection).identifier(identifier));
+    }
+
+    @Override
+    public RoseBatch add(String database, String collection, String identifier, JSONObject document) {
+        return append(new Request("add", database).collection(collection).identifier(identifier).value(document.toString()));
+    }
+
+    @Override
+    public <T> RoseBatch add(String database, String collection, String identifier, T document) {
+        return append(new Request("add", database).collection(collection).identifier(identifier)
+                .value(RoseUtility.gson.toJson(document)));
+    }
+
+    @Override
+    public RoseBatch update(String database, String collection, String identifier, String key, Object value) {
+        return append(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
+    }
+
+    @Override
+    public RoseBatch update(String database, String collection, String identifier, Map<String, ?> map) {
+        return append(new Request("update", database).collection(collection).identifier(identifier)
+                .key(map.keySet()).value(map.values()));
+    }
+
+    @Override
+    public RoseBatch remove(String database, String collection, String identifier) {
+        return append(new Request("delete", database).collection(collection).identifier(identifier));
+    }
+
+    @Override
+    public RoseBatch remove(String database, String collection, String identifier, String key) {
+        return append(new Request("delete", database).collection(collection).identifier(identifier).key(key));
+    }
+
+    @Override
+    public RoseBatch remove(String database, String collection, String identifier, Collection<String> keys) {
+        return append(new Request("delete", database).collection(collection).identifier(identifier).key(keys));
+    }
+
+    @Override
+    public int size() {
+        return requests.size();
+    }
+
+    @Override
+    public CompletableFuture<List<RosePayload>> execute() {
+        return driver.execute(new ArrayList<>(requests));
+    }
+
+    private RoseBatch append(Request request){
+        requests.add(request);
+        return this;
+    }
+
+}
@@ -1,333 +1,848 @@
 package pw.mihou.rosedb.impl;
 
-import org.java_websocket.client.WebSocketClient;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pw.mihou.rosedb.RoseBatch;
+import pw.mihou.rosedb.RoseBuilder;
 import pw.mihou.rosedb.RoseDriver;
-import pw.mihou.rosedb.clients.MainClient;
+import pw.mihou.rosedb.RoseQuery;
+import pw.mihou.rosedb.RoseSyncDriver;
+import pw.mihou.rosedb.cache.CacheStatistics;
+import pw.mihou.rosedb.cache.RoseCache;
 import pw.mihou.rosedb.entities.AggregatedCollection;
 import pw.mihou.rosedb.entities.AggregatedDatabase;
+import pw.mihou.rosedb.entities.StreamedCollection;
 import pw.mihou.rosedb.enums.FilterCasing;
 import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.enums.ReplayPolicy;
 import pw.mihou.rosedb.exceptions.FailedAuthorizationException;
 import pw.mihou.rosedb.exceptions.FailedConnectionException;
 import pw.mihou.rosedb.exceptions.FileDeletionException;
 import pw.mihou.rosedb.exceptions.FileModificationException;
+import pw.mihou.rosedb.exceptions.RequestTimeoutException;
+import pw.mihou.rosedb.filters.DocumentFilter;
+import pw.mihou.rosedb.io.Request;
+import pw.mihou.rosedb.io.RequestEncoder;
 import pw.mihou.rosedb.io.Scheduler;
+import pw.mihou.rosedb.io.TimerWheel;
+import pw.mihou.rosedb.listeners.interfaces.Listener;
+import pw.mihou.rosedb.manager.ConnectionManager;
+import pw.mihou.rosedb.manager.ListenerManager;
 import pw.mihou.rosedb.manager.RequestManager;
 import pw.mihou.rosedb.manager.ResponseManager;
+import pw.mihou.rosedb.metrics.RoseMetrics;
 import pw.mihou.rosedb.payloads.RosePayload;
+import pw.mihou.rosedb.tracing.RequestTracer;
+import pw.mihou.rosedb.utility.PayloadReader;
 import pw.mihou.rosedb.utility.RoseUtility;
 
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class RoseDriverImpl implements RoseDriver {
 
-    private final WebSocketClient client;
+    private static final long UNMETERED = Long.MIN_VALUE;
+
+    private final ConnectionManager connectionManager;
+    private final ListenerManager listenerManager;
+    private final ResponseManager responseManager;
+    private final RequestManager requestManager;
     private final int timeout;
+    private final int maxInFlight;
     private final TimeUnit unit;
-    private boolean shutdown = false;
+    private final long requestTimeout;
+    private final long aggregateTimeout;
+    private final AtomicBoolean shutdown;
+    private final AtomicReference<BatchSupport> batching;
+    private final AutoBatcher autoBatcher;
+    private final RoseCache cache;
+    private final ForkJoinPool pool;
+    private final Executor executor;
+    private final Map<String, Read> reads;
+    private final AtomicLong sequence;
+    private final ReplayPolicy replayPolicy;
+    private final RoseMetrics metrics;
+    private final RequestTracer tracer;
     private static final Logger log = LoggerFactory.getLogger(RoseDriver.class);
 
-    public RoseDriverImpl(URI connection, String authentication, int timeout, TimeUnit unit) throws FailedConnectionException {
-        client = new MainClient(connection);
-        this.timeout = timeout;
-        this.unit = unit;
-        client.addHeader("Authorization", authentication);
-        ((MainClient) client).connect(timeout, unit, false);
-    }
-
-    public RoseDriverImpl(URI connection, String authentication, boolean blocking, int timeout, TimeUnit unit) throws FailedConnectionException {
-        client = new MainClient(connection);
-        this.timeout = timeout;
-        this.unit = unit;
-        client.addHeader("Authorization", authentication);
-        ((MainClient) client).connect(timeout, unit, blocking);
+    public RoseDriverImpl(URI connection, String authentication, boolean blocking, RoseBuilder builder) throws FailedConnectionException {
+        this.timeout = builder.getTimeout();
+        this.unit = builder.getTimeUnit();
+        this.requestTimeout = builder.getRequestTimeout();
+        this.aggregateTimeout = builder.getAggregateTimeout();
+        this.shutdown = new AtomicBoolean();
+        this.batching = new AtomicReference<>(builder.isBatching() ? BatchSupport.UNKNOWN : BatchSupport.UNSUPPORTED);
+        this.reads = new ConcurrentHashMap<>();
+        this.sequence = new AtomicLong();
+        this.responseManager = new ResponseManager();
+        this.maxInFlight = builder.getMaxInFlight();
+        this.pool = builder.getForkJoinPool();
+        this.executor = builder.getExecutor();
+        this.listenerManager = new ListenerManager(builder.getListenerQueueSize());
+        this.cache = builder.isCaching() ? new RoseCache(builder.getCacheMaximumSize(), builder.getCacheMaximumWeight(),
+                builder.getCacheExpireAfterWrite()) : null;
+        this.autoBatcher = builder.isAutoBatching() ? new AutoBatcher(builder.getAutoBatchingWindow(), builder.getAutoBatchingSize()) : null;
+        this.connectionManager = new ConnectionManager(connection, authentication, builder, listenerManager, responseManager);
+        this.requestManager = new RequestManager(connectionManager, responseManager, builder);
+        this.replayPolicy = builder.getReplayPolicy();
+        this.metrics = builder.getMetrics();
+        this.tracer = builder.getRequestTracer();
+        connectionManager.connect(timeout, unit, blocking);
+    }
+
+    /**
+     * Creates a view of the driver that shares everything with it except for the deadlines of its requests.
+     * @param driver the driver.
+     * @param requestTimeout the deadline of the requests of the view, in nanoseconds.
+     * @param aggregateTimeout the deadline of the aggregations of the view, in nanoseconds.
+     * @param executor the executor the replies of the view are decoded on.
+     */
+    private RoseDriverImpl(RoseDriverImpl driver, long requestTimeout, long aggregateTimeout, Executor executor) {
+        this.timeout = driver.timeout;
+        this.unit = driver.unit;
+        this.requestTimeout = requestTimeout;
+        this.aggregateTimeout = aggregateTimeout;
+        this.shutdown = driver.shutdown;
+        this.batching = driver.batching;
+        this.reads = driver.reads;
+        this.sequence = driver.sequence;
+        this.responseManager = driver.responseManager;
+        this.maxInFlight = driver.maxInFlight;
+        this.pool = driver.pool;
+        this.executor = executor;
+        this.listenerManager = driver.listenerManager;
+        this.cache = driver.cache;
+        this.autoBatcher = driver.autoBatcher;
+        this.connectionManager = driver.connectionManager;
+        this.requestManager = driver.requestManager;
+        this.replayPolicy = driver.replayPolicy;
+        this.metrics = driver.metrics;
+        this.tracer = driver.tracer;
+    }
+
+    @Override
+    public RoseDriver withTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0)
+            throw new IllegalArgumentException("The timeout of the requests must be positive.");
+
+        return new RoseDriverImpl(this, unit.toNanos(timeout), unit.toNanos(timeout), executor);
+    }
+
+    @Override
+    public RoseSyncDriver sync() {
+        return new RoseSyncDriverImpl(this);
+    }
+
+    /**
+     * Creates a view of the driver whose replies are decoded on the executor.
+     * @param executor the executor.
+     * @return the view of the driver.
+     */
+    RoseDriverImpl withExecutor(Executor executor) {
+        return new RoseDriverImpl(this, requestTimeout, aggregateTimeout, executor);
     }
 
     @Override
     public CompletableFuture<RosePayload> get(String database, String collection, String identifier) {
-        return send(new JSONObject().put("collection", collection)
-                .put("identifier", identifier), "get", database);
+        long start = start("get");
+        return meter("get", start, read(database, collection, identifier));
+    }
+
+    private CompletableFuture<RosePayload> read(String database, String collection, String identifier){
+        if (cache == null)
+            return coalesce(key("get", database, collection, identifier), requestTimeout,
+                    () -> send(new Request("get", database).collection(collection).identifier(identifier)));
+
+        RosePayload cached = cache.get(database, collection, identifier);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+
+        long stamp = cache.stamp(database, collection, identifier);
+        return coalesce(key("get", database, collection, identifier), requestTimeout, () -> send(new Request("get", database).collection(collection).identifier(identifier)).thenApply(payload -> {
+            cache.put(database, collection, identifier, payload, stamp);
+            return payload;
+        }));
     }
 
     @Override
     public CompletableFuture<AggregatedDatabase> aggregate(String database) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database)));
+        return database(database, "aggregate", DocumentFilter.all());
     }
 
     @Override
     public CompletableFuture<AggregatedCollection> aggregate(String database, String collection) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection)));
+        return collection(database, collection, "aggregate", DocumentFilter.all());
+    }
+
+    @Override
+    public StreamedCollection stream(String database, String collection) {
+        return new StreamedCollection(collection, () -> fetch(database, collection));
+    }
+
+    @Override
+    public CompletableFuture<AggregatedDatabase> filter(String database, RoseQuery query) {
+        return database(database, "filter", query.compile());
+    }
+
+    @Override
+    public CompletableFuture<AggregatedCollection> filter(String database, String collection, RoseQuery query) {
+        return collection(database, collection, "filter", query.compile());
     }
 
     @Override
     public CompletableFuture<AggregatedDatabase> filter(String database, String key, String value, FilterCasing casing) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database), key, value, casing));
+        return database(database, "filter", DocumentFilter.of(key, value, casing));
     }
 
     @Override
     public CompletableFuture<AggregatedDatabase> filter(String database, String key, long value, NumberFilter filter) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database), key, value, filter));
+        return database(database, "filter", DocumentFilter.of(key, value, filter));
     }
 
     @Override
     public CompletableFuture<AggregatedDatabase> filter(String database, String key, double value, NumberFilter filter) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database), key, value, filter));
+        return database(database, "filter", DocumentFilter.of(key, value, filter));
     }
 
     @Override
     public <T> CompletableFuture<AggregatedDatabase> filter(String database, String key, T value) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database), key, value));
+        return database(database, "filter", DocumentFilter.of(key, value));
     }
 
     @Override
     public CompletableFuture<AggregatedDatabase> filter(String database, String key, int value, NumberFilter filter) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database), key, value, filter));
+        return database(database, "filter", DocumentFilter.of(key, value, filter));
     }
 
     @Override
     public CompletableFuture<AggregatedDatabase> filter(String database, String key, boolean value) {
-        return send(new JSONObject().put("database", database))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedDatabase(database, o.getJSONObject(database), key, value));
+        return database(database, "filter", DocumentFilter.of(key, value));
     }
 
     @Override
     public CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, String value, FilterCasing casing) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection), key, value, casing));
+        return collection(database, collection, "filter", DocumentFilter.of(key, value, casing));
     }
 
     @Override
     public CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, long value, NumberFilter filter) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection), key, value, filter));
+        return collection(database, collection, "filter", DocumentFilter.of(key, value, filter));
     }
 
     @Override
     public CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, double value, NumberFilter filter) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection), key, value, filter));
+        return collection(database, collection, "filter", DocumentFilter.of(key, value, filter));
     }
 
     @Override
     public <T> CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, T value) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection), key, value));
+        return collection(database, collection, "filter", DocumentFilter.of(key, value));
     }
 
     @Override
     public CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, int value, NumberFilter filter) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection), key, value, filter));
+        return collection(database, collection, "filter", DocumentFilter.of(key, value, filter));
     }
 
     @Override
     public CompletableFuture<AggregatedCollection> filter(String database, String collection, String key, boolean value) {
-        return send(new JSONObject().put("database", database).put("collection", collection))
-                .thenApply(RosePayload::asJSONObject)
-                .thenApply(o -> new AggregatedCollection(collection, o.getJSONObject(collection), key, value));
+        return collection(database, collection, "filter", DocumentFilter.of(key, value));
     }
 
     @Override
     public CompletableFuture<RosePayload> add(String database, String collection, String identifier, JSONObject document) {
-        return send(new JSONObject().put("collection", collection)
-                .put("identifier", identifier).put("value", document.toString()), "add", database);
+        return write(new Request("add", database).collection(collection).identifier(identifier).value(document.toString()));
     }
 
     @Override
     public <T> CompletableFuture<RosePayload> add(String database, String collection, String identifier, T document) {
-        return send(new JSONObject().put("collection", collection)
-                .put("identifier", identifier).put("value", RoseUtility.gson.toJson(document)), "add", database);
+        return write(new Request("add", database).collection(collection).identifier(identifier)
+                .value(RoseUtility.gson.toJson(document)));
     }
 
     @Override
     public CompletableFuture<RosePayload> remove(String database, String collection, String identifier, String key) {
-        return send(new JSONObject().put("collection", collection).put("identifier", identifier)
-        .put("key", key), "delete", database);
+        return modify(new Request("delete", database).collection(collection).identifier(identifier).key(key));
     }
 
     @Override
     public CompletableFuture<RosePayload> remove(String database, String collection, String identifier, Collection<String> keys) {
-        return send(new JSONObject().put("collection", collection).put("identifier", identifier)
-                .put("key", keys), "delete", database);
+        return modify(new Request("delete", database).collection(collection).identifier(identifier).key(keys));
     }
 
     @Override
     public CompletableFuture<Boolean> remove(String database, String collection, String identifier) {
-        return send(new JSONObject().put("collection", collection).put("identifier", identifier), "delete", database)
+        return modify(new Request("delete", database).collection(collection).identifier(identifier))
                 .thenApply(payload -> payload.getKode() == 1);
     }
 
     @Override
     public CompletableFuture<Boolean> removeCollection(String database, String collection) {
-        return send(new JSONObject().put("collection", collection), "drop", database).thenApply(payload -> payload.getKode() == 1);
+        return modify(new Request("drop", database).collection(collection)).thenApply(payload -> payload.getKode() == 1);
     }
 
     @Override
     public CompletableFuture<Boolean> removeDatabase(String database) {
-        return send(new JSONObject(), "drop", database).thenApply(payload -> payload.getKode() == 1);
+        return modify(new Request("drop", database)).thenApply(payload -> payload.getKode() == 1);
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, String key, String value) {
-        return send(new JSONObject().put("identifier", identifier).put("key", key).put("value", value)
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, String key, int value) {
-        return send(new JSONObject().put("identifier", identifier).put("key", key).put("value", value)
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, String key, boolean value) {
-        return send(new JSONObject().put("identifier", identifier).put("key", key).put("value", value)
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, String key, double value) {
-        return send(new JSONObject().put("identifier", identifier).put("key", key).put("value", value)
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, String key, long value) {
-        return send(new JSONObject().put("identifier", identifier).put("key", key).put("value", value)
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, String key, Object value) {
-        return send(new JSONObject().put("identifier", identifier).put("key", key).put("value", value)
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier).key(key).value(value));
     }
 
     @Override
     public CompletableFuture<RosePayload> update(String database, String collection, String identifier, Map<String, ?> map) {
-        return send(new JSONObject().put("identifier", identifier).put("key", new ArrayList<>(map.keySet()))
-                .put("value", new ArrayList<>(map.values()))
-                .put("collection", collection), "update", database);
+        return write(new Request("update", database).collection(collection).identifier(identifier)
+                .key(map.keySet()).value(map.values()));
     }
 
     @Override
     public CompletableFuture<RosePayload> revert(String database, String collection, String identifier) {
-        return send(new JSONObject().put("collection", collection).put("identifier", identifier), "revert", database);
-    }
-
-    private CompletableFuture<RosePayload> send(JSONObject request){
-        if(!shutdown) {
-            if(client.isOpen() || ((MainClient) client).isConnected) {
-                String unique = UUID.randomUUID().toString();
-                return CompletableFuture.runAsync(() -> {
-                    client.send(request.put("method", "aggregate").put("unique", unique).toString());
-                    RequestManager.requests.add(unique);
-
-                    int i = 0;
-                    // If you have any better way of getting responses, please edit.
-                    while (ResponseManager.isNull(unique) && i < 30) {
-                        try {
-                            i++;
-                            Thread.sleep(5);
-                        } catch (InterruptedException ignored) {
-                        }
+        return modify(new Request("revert", database).collection(collection).identifier(identifier));
+    }
+
+    private CompletableFuture<RosePayload> write(Request request){
+        String method = request.getMethod();
+        long start = start(method);
+        return meter(method, start, autoBatcher != null ? autoBatcher.submit(this, request) : send(request));
+    }
+
+    private CompletableFuture<RosePayload> modify(Request request){
+        String method = request.getMethod();
+        long start = start(method);
+        return meter(method, start, send(request));
+    }
+
+    /**
+     * Reports the start of an operation to the metrics of the driver.
+     * @param operation the operation.
+     * @return when the operation started, {@link #UNMETERED} if the driver has no metrics.
+     */
+    private long start(String operation){
+        if (metrics == RoseMetrics.NOOP)
+            return UNMETERED;
+
+        metrics.onStart(operation);
+        return System.nanoTime();
+    }
+
+    /**
+     * Reports the latency of the operation to the metrics of the driver once it completes.
+     * @param operation the operation.
+     * @param start when the operation started.
+     * @param future the future of the operation.
+     * @return the future of the operation.
+     */
+    private <T> CompletableFuture<T> meter(String operation, long start, CompletableFuture<T> future){
+        if (start != UNMETERED)
+            future.whenComplete((result, throwable) -> metrics.onComplete(operation, System.nanoTime() - start, throwable == null));
+
+        return future;
+    }
+
+    private long now(){
+        return metrics == RoseMetrics.NOOP && tracer == RequestTracer.NOOP ? UNMETERED : System.nanoTime();
+    }
+
+    /**
+     * Reports the time spent decoding to the metrics and tracer of the driver.
+     * @param operation the operation.
+     * @param unique the unique value of the request that was decoded, null if it is not known.
+     * @param start when decoding started.
+     */
+    private void decoded(String operation, String unique, long start){
+        if (start == UNMETERED)
+            return;
+
+        long now = System.nanoTime();
+        metrics.onDecoded(operation, now - start);
+        if (unique != null)
+            tracer.onDecoded(unique, now - start, now);
+    }
+
+    /**
+     * Reports the completion of the request to the tracer of the driver once its future completes.
+     * @param unique the unique value of the request.
+     * @param future the future of the request.
+     * @return the future of the request.
+     */
+    private <T> CompletableFuture<T> trace(String unique, CompletableFuture<T> future){
+        if (tracer != RequestTracer.NOOP)
+            future.whenComplete((result, throwable) -> completed(unique, throwable == null));
+
+        return future;
+    }
+
+    private void completed(String unique, boolean successful){
+        if (tracer != RequestTracer.NOOP)
+            tracer.onCompleted(unique, successful, System.nanoTime());
+    }
+
+    /**
+     * Retrieves an entire database and decodes the documents that match the filter on the pool.
+     * @param database the database to retrieve.
+     * @param operation the operation that is reported to the metrics.
+     * @param filter the filter the documents must match.
+     * @return the aggregated database.
+     */
+    private CompletableFuture<AggregatedDatabase> database(String database, String operation, DocumentFilter filter){
+        long start = start(operation);
+        return meter(operation, start, fetch(database, null).thenApply(payload -> {
+            long decoding = now();
+            AggregatedDatabase aggregated = new AggregatedDatabase(database, payload.getRaw(), filter, pool);
+            decoded(operation, null, decoding);
+            return aggregated;
+        }));
+    }
+
+    /**
+     * Retrieves an entire collection and decodes the documents that match the filter on the pool.
+     * @param database the database holding the collection.
+     * @param collection the collection to retrieve.
+     * @param operation the operation that is reported to the metrics.
+     * @param filter the filter the documents must match.
+     * @return the aggregated collection.
+     */
+    private CompletableFuture<AggregatedCollection> collection(String database, String collection, String operation, DocumentFilter filter){
+        long start = start(operation);
+        return meter(operation, start, fetch(database, collection).thenApply(payload -> {
+            long decoding = now();
+            AggregatedCollection aggregated = new AggregatedCollection(collection, payload.getRaw(), filter, pool);
+            decoded(operation, null, decoding);
+            return aggregated;
+        }));
+    }
+
+    /**
+     * Retrieves an entire database or collection, this is what aggregations and filters are built upon.
+     * @param database the database to retrieve.
+     * @param collection the collection to retrieve, null for the entire database.
+     * @return the raw aggregation from the server.
+     */
+    private CompletableFuture<RosePayload> fetch(String database, String collection){
+        return coalesce(key("aggregate", database, collection, null), aggregateTimeout,
+                () -> send(new Request("aggregate", database).collection(collection)));
+    }
+
+    /**
+     * Attaches identical reads to the one that is already in flight instead of sending
+     * the same request again, each caller receives its own copy of the future. Callers with
+     * an earlier deadline than the read still fail once their own deadline has passed while
+     * callers with a later one send the read again with whatever is left of their deadline
+     * should the read they are attached to run out of time.
+     * @param key the key that identifies the read.
+     * @param timeout the deadline of the caller, in nanoseconds.
+     * @param request the supplier that sends the read if none is in flight.
+     * @return the reply of the read.
+     */
+    private CompletableFuture<RosePayload> coalesce(String key, long timeout, Supplier<CompletableFuture<RosePayload>> request){
+        long deadline = System.nanoTime() + timeout;
+        Read read = reads.get(key);
+        if (read == null) {
+            Read placeholder = new Read(deadline);
+            read = reads.putIfAbsent(key, placeholder);
+            if (read == null) {
+                request.get().whenComplete((payload, throwable) -> {
+                    reads.remove(key, placeholder);
+                    if (throwable != null) {
+                        placeholder.future.completeExceptionally(throwable);
+                    } else {
+                        placeholder.future.complete(payload);
                     }
-                }).thenApply(unused -> {
-                    if (ResponseManager.isNull(unique))
-                        throw new CompletionException(new FailedAuthorizationException("Please validate: correct authorization code or unique value on request."));
+                });
+                return placeholder.future.copy();
+            }
+        }
 
-                    RosePayload payload = RoseUtility.gson.fromJson(ResponseManager.get(unique), RosePayload.class);
-                    if (payload.getKode() != 1) {
-                        throw new CompletionException(new FailedAuthorizationException(payload.getRaw()));
-                    }
+        CompletableFuture<RosePayload> copy = read.future.copy();
+        if (deadline - read.deadline < 0) {
+            expire(copy, deadline, timeout);
+            return copy;
+        }
 
-                    return payload;
-                });
-            } else {
-                try {
-                    log.debug("The client has disconnected from the server, delaying request for 2 seconds...");
-                    Thread.sleep(2000);
-                    return send(request);
-                } catch (InterruptedException e) {
-                    log.error(e.getMessage());
-                }
+        if (deadline == read.deadline)
+            return copy;
+
+        CompletableFuture<RosePayload> future = copy.handle((payload, throwable) -> {
+            if (throwable == null)
+                return CompletableFuture.completedFuture(payload);
+
+            Throwable cause = cause(throwable);
+            long remaining = deadline - System.nanoTime();
+            if (cause instanceof RequestTimeoutException && remaining > 0)
+                return coalesce(key, remaining, request);
+
+            return CompletableFuture.<RosePayload>failedFuture(cause);
+        }).thenCompose(Function.identity());
+
+        // The read that is sent again has the full deadline of the driver, the caller still has to stop at its own.
+        expire(future, deadline, timeout);
+        return future;
+    }
+
+    private static String key(String method, String database, String collection, String identifier){
+        StringBuilder builder = new StringBuilder(method).append('\u0000').append(database);
+        if (collection != null)
+            builder.append('\u0000').append(collection);
+        if (identifier != null)
+            builder.append('\u0000').append(identifier);
+        return builder.toString();
+    }
+
+    private CompletableFuture<RosePayload> send(Request request){
+        String method = request.getMethod();
+        if (method.equals("aggregate"))
+            return send(request, FailedAuthorizationException::new);
+
+        Function<String, Exception> failure = method.equals("drop") || method.equals("delete") ?
+                FileDeletionException::new : FileModificationException::new;
+
+        if (method.equals("get"))
+            return send(request, failure);
+
+        // Invalidated on both ends so that retrievals racing with the modification are never reused.
+        invalidate(request);
+        return send(request, failure).whenComplete((payload, throwable) -> invalidate(request));
+    }
+
+    private CompletableFuture<RosePayload> send(Request request, Function<String, Exception> failure){
+        String unique = unique();
+        return trace(unique, exchange(request, unique).thenApplyAsync(response -> {
+            if (response == null)
+                return new RosePayload();
+
+            long decoding = now();
+            RosePayload payload = PayloadReader.read(response, 0);
+            decoded(request.getMethod(), unique, decoding);
+            if (payload.getKode() != 1) {
+                throw new CompletionException(failure.apply(payload.getRaw()));
             }
+
+            return payload;
+        }, executor));
+    }
+
+    /**
+     * Sends the request to the server and returns the raw reply without
+     * validating the kode of the reply.
+     * @param request the request.
+     * @param unique the unique value of the request.
+     * @return the raw response from the server, null if the driver has been shut down.
+     */
+    private CompletableFuture<String> exchange(Request request, String unique){
+        if (shutdown.get())
+            return CompletableFuture.completedFuture(null);
+
+        String frame = RequestEncoder.encode(request, unique);
+        if (tracer != RequestTracer.NOOP)
+            tracer.onEncoded(unique, request.getMethod(), RoseUtility.utf8Length(frame), System.nanoTime());
+
+        // Requests made while disconnected wait in the queue of the request manager instead of the caller's thread.
+        return dispatch(unique, frame, isReplayable(request),
+                request.getMethod().equals("aggregate") ? aggregateTimeout : requestTimeout);
+    }
+
+    private String unique(){
+        return Long.toString(sequence.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+    /**
+     * Checks whether the request may be written again after its connection was lost
+     * before the server replied, which depends on the replay policy of the driver.
+     * @param request the request.
+     * @return whether the request may be replayed.
+     */
+    private boolean isReplayable(Request request){
+        if (request.getRequests() != null)
+            return request.getRequests().stream().allMatch(this::isReplayable);
+
+        switch (request.getMethod()) {
+            case "get":
+            case "aggregate":
+                return replayPolicy != ReplayPolicy.NONE;
+            case "add":
+            case "update":
+                return replayPolicy == ReplayPolicy.IDEMPOTENT;
+            default:
+                return false;
         }
+    }
 
-        return CompletableFuture.supplyAsync(RosePayload::new);
-    }
-
-    private CompletableFuture<RosePayload> send(JSONObject request, String method, String database){
-        if(!shutdown) {
-            if(client.isOpen() || ((MainClient) client).isConnected) {
-                String unique = UUID.randomUUID().toString();
-                return CompletableFuture.runAsync(() -> {
-                    client.send(request
-                            .put("method", method).put("database", database).put("unique", unique).toString());
-                    RequestManager.requests.add(unique);
-
-                    int i = 0;
-                    // If you have any better way of getting responses, please edit.
-                    while (ResponseManager.isNull(unique) && i < 30) {
-                        try {
-                            i++;
-                            Thread.sleep(5);
-                        } catch (InterruptedException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                }).thenApply(unused -> {
-                    // There is only one response when the value is null.
-                    if (ResponseManager.isNull(unique))
-                        throw new CompletionException(new FailedAuthorizationException("Please validate: correct authorization code or unique value on request."));
-
-                    RosePayload payload = RoseUtility.gson.fromJson(ResponseManager.get(unique), RosePayload.class);
-                    if (payload.getKode() != 1) {
-                        throw new CompletionException(method.equalsIgnoreCase("drop") || method.equalsIgnoreCase("delete") ?
-                                new FileDeletionException(payload.getRaw()) : new FileModificationException(payload.getRaw()));
-                    }
+    /**
+     * Sends all the requests of a batch, natively as a single frame if the server supports it
+     * and otherwise as individual frames that are pipelined over the connections.
+     * @param requests the requests of the batch.
+     * @return the replies of the requests, in the same order as the requests.
+     */
+    CompletableFuture<List<RosePayload>> batch(List<Request> requests){
+        if (requests.isEmpty())
+            return CompletableFuture.completedFuture(Collections.emptyList());
+
+        requests.forEach(this::invalidate);
+        return batch0(requests).whenComplete((payloads, throwable) -> requests.forEach(this::invalidate));
+    }
+
+    /**
+     * Sends the requests of a batch that was built by the user, which unlike the
+     * batches of the auto batcher is reported to the metrics as an operation of its own.
+     * @param requests the requests of the batch.
+     * @return the replies of the requests, in the same order as the requests.
+     */
+    CompletableFuture<List<RosePayload>> execute(List<Request> requests){
+        long start = start("batch");
+        return meter("batch", start, batch(requests));
+    }
+
+    private CompletableFuture<List<RosePayload>> batch0(List<Request> requests){
+        BatchSupport support = batching.get();
+        if (support == BatchSupport.UNSUPPORTED)
+            return pipeline(requests);
+
+        String unique = unique();
+        CompletableFuture<String> exchange = exchange(new Request("batch", null).requests(requests), unique);
+        if (support == BatchSupport.UNKNOWN) {
+            // A server that drops requests it does not know never replies, the batch may still have been applied so it is not sent again.
+            exchange.whenComplete((response, throwable) -> {
+                if (throwable != null && cause(throwable) instanceof RequestTimeoutException
+                        && batching.compareAndSet(BatchSupport.UNKNOWN, BatchSupport.UNSUPPORTED))
+                    log.debug("The server did not reply to a batched request, falling back to pipelined requests...");
+            });
+        }
 
-                    return payload;
-                });
+        return trace(unique, exchange.thenComposeAsync(response -> {
+            if (response == null)
+                return CompletableFuture.completedFuture(Collections.nCopies(requests.size(), new RosePayload()));
+
+            long decoding = now();
+            List<RosePayload> payloads = PayloadReader.readAll(response);
+            RosePayload payload = payloads == null ? PayloadReader.read(response, 0) : null;
+            decoded("batch", unique, decoding);
+
+            // The kode of the batch only tells whether every request succeeded, each of them has its own payload.
+            if (payloads != null && payloads.size() == requests.size()) {
+                batching.compareAndSet(BatchSupport.UNKNOWN, BatchSupport.SUPPORTED);
+                return CompletableFuture.completedFuture(payloads);
+            }
+
+            // None of the requests have been applied when the server does not know the method, anything else may have been.
+            if (payload != null && payload.getKode() != 1 && isUnknownMethod(payload)) {
+                if (batching.getAndSet(BatchSupport.UNSUPPORTED) != BatchSupport.UNSUPPORTED)
+                    log.debug("The server does not support batched requests, falling back to pipelined requests...");
+                return pipeline(requests);
+            }
+
+            throw new CompletionException(new FileModificationException(payload == null ? response : payload.getRaw()));
+        }, executor));
+    }
+
+    /**
+     * Checks whether the server rejected a request because it does not know its method,
+     * RoseDB replies to those with a failure that names the method as invalid.
+     * @param payload the reply of the server.
+     * @return whether the method of the request is unknown to the server.
+     */
+    private static boolean isUnknownMethod(RosePayload payload){
+        String raw = payload.getRaw();
+        return raw != null && raw.toLowerCase(Locale.ROOT).contains("method");
+    }
+
+    private static Throwable cause(Throwable throwable){
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    /**
+     * Sends the requests as individual frames while keeping at most one connection's worth
+     * of them in flight, every reply that arrives makes room for the next request.
+     * @param requests the requests to send.
+     * @return the replies of the requests, in the same order as the requests.
+     */
+    private CompletableFuture<List<RosePayload>> pipeline(List<Request> requests){
+        RosePayload[] payloads = new RosePayload[requests.size()];
+        CompletableFuture<List<RosePayload>> future = new CompletableFuture<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(requests.size());
+
+        for (int i = 0; i < Math.min(maxInFlight, requests.size()); i++) {
+            pipeline(requests, payloads, next, remaining, future);
+        }
+
+        return future;
+    }
+
+    private void pipeline(List<Request> requests, RosePayload[] payloads, AtomicInteger next,
+                          AtomicInteger remaining, CompletableFuture<List<RosePayload>> future){
+        int index = next.getAndIncrement();
+        if (index >= requests.size() || future.isDone())
+            return;
+
+        String unique = unique();
+        exchange(requests.get(index), unique).whenCompleteAsync((response, throwable) -> {
+            if (throwable != null) {
+                completed(unique, false);
+                future.completeExceptionally(throwable);
+                return;
+            }
+
+            long decoding = now();
+            payloads[index] = response == null ? new RosePayload() : PayloadReader.read(response, 0);
+            decoded(requests.get(index).getMethod(), unique, decoding);
+            completed(unique, true);
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(Arrays.asList(payloads));
+                return;
+            }
+
+            pipeline(requests, payloads, next, remaining, future);
+        }, executor);
+    }
+
+    /**
+     * Removes whatever the request modifies from the near cache and detaches the
+     * reads of it that are in flight so that later reads are sent to the server again.
+     * @param request the request.
+     */
+    private void invalidate(Request request){
+        String method = request.getMethod();
+        if (method.equals("get") || method.equals("aggregate"))
+            return;
+
+        String database = request.getDatabase();
+        String collection = request.getCollection();
+        String identifier = request.getIdentifier();
+        if (collection != null && identifier != null) {
+            if (cache != null)
+                cache.invalidate(database, collection, identifier);
+
+            reads.remove(key("get", database, collection, identifier));
+            reads.remove(key("aggregate", database, collection, null));
+            reads.remove(key("aggregate", database, null, null));
+        } else {
+            if (cache != null)
+                cache.invalidateAll(database, collection);
+
+            String prefix = key("", database, collection, null);
+            reads.keySet().removeIf(key -> {
+                String target = key.substring(key.indexOf('\u0000'));
+                return target.startsWith(prefix) && (target.length() == prefix.length() || target.charAt(prefix.length()) == '\u0000');
+            });
+        }
+    }
+
+    /**
+     * Hands the request over to the request manager which writes it to the server, the
+     * returned future is completed by the client once the reply arrives which means
+     * no thread is held while the request is waiting.
+     * @param unique the unique value of the request.
+     * @param request the serialized request.
+     * @param replayable whether the request may be replayed after its connection was lost.
+     * @param deadline how long the server has to reply, counting from now, in nanoseconds.
+     * @return the raw response from the server.
+     */
+    private CompletableFuture<String> dispatch(String unique, String request, boolean replayable, long deadline){
+        CompletableFuture<String> future = new CompletableFuture<>();
+        requestManager.send(unique, request, replayable, deadline).whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                future.complete(response);
             } else {
-                try {
-                    log.debug("The client has disconnected from the server, delaying request for 2 seconds...");
-                    Thread.sleep(2000);
-                    return send(request, method, database);
-                } catch (InterruptedException e) {
-                    log.error(e.getMessage());
-                }
+                // Failures arrive on the timer wheel and the connections, neither should run the stages of the caller.
+                fail(future, throwable);
             }
+        });
+        return future;
+    }
+
+    /**
+     * Fails the future with a timeout once the deadline has passed unless it completes before that.
+     * @param future the future.
+     * @param deadline the deadline, in the same time as {@link System#nanoTime()}.
+     * @param timeout the timeout the deadline was made from, in nanoseconds.
+     */
+    void expire(CompletableFuture<?> future, long deadline, long timeout){
+        TimerWheel.Timeout expiry = Scheduler.timeout(() -> fail(future, new RequestTimeoutException(timeout)),
+                deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        future.whenComplete((result, throwable) -> expiry.cancel());
+    }
+
+    /**
+     * Fails the future on the executor of the driver so that the stages attached to it
+     * never run on the thread that noticed the failure.
+     * @param future the future.
+     * @param throwable the failure.
+     */
+    private void fail(CompletableFuture<?> future, Throwable throwable){
+        try {
+            executor.execute(() -> future.completeExceptionally(throwable));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(throwable);
         }
-        return CompletableFuture.supplyAsync(RosePayload::new);
+    }
+
+    /**
+     * Gets the deadline of the requests of this driver, or view of it.
+     * @return the deadline in nanoseconds.
+     */
+    long getRequestTimeout(){
+        return requestTimeout;
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(){
+        return cache == null ? new CacheStatistics(0, 0, 0, 0) : cache.getStatistics();
+    }
+
+    @Override
+    public RoseBatch batch(){
+        return new RoseBatchImpl(this);
+    }
+
+    @Override
+    public void addListener(Listener listener){
+        listenerManager.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener){
+        listenerManager.removeListener(listener);
     }
 
     @Override
@@ -337,22 +852,26 @@ public class RoseDriverImpl implements RoseDriver {
 
     @Override
     public void shutdown(String message){
-        shutdown = true;
-        if (!RequestManager.requests.isEmpty()) {
-            int i = 0;
-            while (!RequestManager.requests.isEmpty() && i < unit.toSeconds(timeout)) {
-                try {
-                    i++;
-                    log.info("Waiting for requests: [{}] to complete...", String.join(", ", RequestManager.requests));
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+        if (autoBatcher != null)
+            autoBatcher.flush();
+
+        shutdown.set(true);
+        // Every connection is closed as soon as its own requests have drained.
+        int i = 0;
+        while ((requestManager.getQueued() > 0 || !connectionManager.closeDrained(1000, message)) && i < unit.toSeconds(timeout)) {
+            try {
+                i++;
+                log.info("Waiting for requests: [{}] to complete...", String.join(", ", responseManager.getPending()));
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
         }
 
         log.info("The client is now closing down...");
-        client.close(1000, message);
+        connectionManager.close(1000, message);
+        requestManager.close("The driver has been shut down: " + message);
+        listenerManager.shutdown();
     }
 
     @Override
@@ -372,8 +891,33 @@ public class RoseDriverImpl implements RoseDriver {
 
     @Override
     public void forceShutdown(String message) {
-        shutdown = true;
+        shutdown.set(true);
         log.debug("The client is now closing down...");
-        client.close(1000, message);
+        connectionManager.close(1000, message);
+        requestManager.close("The driver has been shut down: " + message);
+        listenerManager.shutdown();
+    }
+
+    /**
+     * A read that is in flight along with the deadline it was sent with.
+     */
+    /**
+     * Whether the server has been seen to support batched requests, batches are sent natively
+     * until the server either rejects the method or leaves a batch without a reply.
+     */
+    private enum BatchSupport {
+        UNKNOWN, SUPPORTED, UNSUPPORTED
     }
+
+    private static final class Read {
+
+        private final CompletableFuture<RosePayload> future = new CompletableFuture<>();
+        private final long deadline;
+
+        private Read(long deadline){
+            this.deadline = deadline;
+        }
+
+    }
+
 }
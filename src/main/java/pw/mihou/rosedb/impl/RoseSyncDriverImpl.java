@@ -0,0 +1,209 @@
+package pw.mihou.rosedb.impl;
+
+import org.json.JSONObject;
+import pw.mihou.rosedb.RoseDriver;
+import pw.mihou.rosedb.RoseQuery;
+import pw.mihou.rosedb.RoseSyncDriver;
+import pw.mihou.rosedb.entities.AggregatedCollection;
+import pw.mihou.rosedb.entities.AggregatedDatabase;
+import pw.mihou.rosedb.enums.FilterCasing;
+import pw.mihou.rosedb.enums.NumberFilter;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class RoseSyncDriverImpl implements RoseSyncDriver {
+
+    private final RoseDriverImpl driver;
+
+    public RoseSyncDriverImpl(RoseDriverImpl driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Sends the request through a view of the driver whose tasks are run by the calling
+     * thread while it waits, the reply is therefore decoded right where it is needed.
+     * @param request the request to send through the view.
+     * @param <T> the type of the result.
+     * @return the result of the request.
+     */
+    private <T> T await(Function<RoseDriver, CompletableFuture<T>> request) {
+        ThreadlessExecutor executor = new ThreadlessExecutor();
+        return executor.await(request.apply(driver.withExecutor(executor)));
+    }
+
+    @Override
+    public RosePayload get(String database, String collection, String identifier) {
+        return await(d -> d.get(database, collection, identifier));
+    }
+
+    @Override
+    public AggregatedDatabase aggregate(String database) {
+        return await(d -> d.aggregate(database));
+    }
+
+    @Override
+    public AggregatedCollection aggregate(String database, String collection) {
+        return await(d -> d.aggregate(database, collection));
+    }
+
+    @Override
+    public AggregatedDatabase filter(String database, String key, String value, FilterCasing casing) {
+        return await(d -> d.filter(database, key, value, casing));
+    }
+
+    @Override
+    public AggregatedDatabase filter(String database, String key, long value, NumberFilter filter) {
+        return await(d -> d.filter(database, key, value, filter));
+    }
+
+    @Override
+    public AggregatedDatabase filter(String database, String key, double value, NumberFilter filter) {
+        return await(d -> d.filter(database, key, value, filter));
+    }
+
+    @Override
+    public AggregatedDatabase filter(String database, String key, int value, NumberFilter filter) {
+        return await(d -> d.filter(database, key, value, filter));
+    }
+
+    @Override
+    public AggregatedDatabase filter(String database, String key, boolean value) {
+        return await(d -> d.filter(database, key, value));
+    }
+
+    @Override
+    public <T> AggregatedDatabase filter(String database, String key, T value) {
+        return await(d -> d.filter(database, key, value));
+    }
+
+    @Override
+    public AggregatedDatabase filter(String database, RoseQuery query) {
+        return await(d -> d.filter(database, query));
+    }
+
+    @Override
+    public AggregatedCollection filter(String database, String collection, String key, String value, FilterCasing casing) {
+        return await(d -> d.filter(database, collection, key, value, casing));
+    }
+
+    @Override
+    public AggregatedCollection filter(String database, String collection, String key, long value, NumberFilter filter) {
+        return await(d -> d.filter(database, collection, key, value, filter));
+    }
+
+    @Override
+    public AggregatedCollection filter(String database, String collection, String key, double value, NumberFilter filter) {
+        return await(d -> d.filter(database, collection, key, value, filter));
+    }
+
+    @Override
+    public AggregatedCollection filter(String database, String collection, String key, int value, NumberFilter filter) {
+        return await(d -> d.filter(database, collection, key, value, filter));
+    }
+
+    @Override
+    public AggregatedCollection filter(String database, String collection, String key, boolean value) {
+        return await(d -> d.filter(database, collection, key, value));
+    }
+
+    @Override
+    public <T> AggregatedCollection filter(String database, String collection, String key, T value) {
+        return await(d -> d.filter(database, collection, key, value));
+    }
+
+    @Override
+    public AggregatedCollection filter(String database, String collection, RoseQuery query) {
+        return await(d -> d.filter(database, collection, query));
+    }
+
+    @Override
+    public RosePayload add(String database, String collection, String identifier, JSONObject document) {
+        return await(d -> d.add(database, collection, identifier, document));
+    }
+
+    @Override
+    public <T> RosePayload add(String database, String collection, String identifier, T document) {
+        return await(d -> d.add(database, collection, identifier, document));
+    }
+
+    @Override
+    public RosePayload remove(String database, String collection, String identifier, String key) {
+        return await(d -> d.remove(database, collection, identifier, key));
+    }
+
+    @Override
+    public RosePayload remove(String database, String collection, String identifier, Collection<String> keys) {
+        return await(d -> d.remove(database, collection, identifier, keys));
+    }
+
+    @Override
+    public boolean remove(String database, String collection, String identifier) {
+        return await(d -> d.remove(database, collection, identifier));
+    }
+
+    @Override
+    public boolean removeCollection(String database, String collection) {
+        return await(d -> d.removeCollection(database, collection));
+    }
+
+    @Override
+    public boolean removeDatabase(String database) {
+        return await(d -> d.removeDatabase(database));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, String key, String value) {
+        return await(d -> d.update(database, collection, identifier, key, value));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, String key, int value) {
+        return await(d -> d.update(database, collection, identifier, key, value));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, String key, boolean value) {
+        return await(d -> d.update(database, collection, identifier, key, value));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, String key, double value) {
+        return await(d -> d.update(database, collection, identifier, key, value));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, String key, long value) {
+        return await(d -> d.update(database, collection, identifier, key, value));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, String key, Object value) {
+        return await(d -> d.update(database, collection, identifier, key, value));
+    }
+
+    @Override
+    public RosePayload update(String database, String collection, String identifier, Map<String, ?> map) {
+        return await(d -> d.update(database, collection, identifier, map));
+    }
+
+    @Override
+    public RosePayload revert(String database, String collection, String identifier) {
+        return await(d -> d.revert(database, collection, identifier));
+    }
+
+    @Override
+    public RoseSyncDriver withTimeout(long timeout, TimeUnit unit) {
+        return new RoseSyncDriverImpl((RoseDriverImpl) driver.withTimeout(timeout, unit));
+    }
+
+    @Override
+    public RoseDriver async() {
+        return driver;
+    }
+
+}
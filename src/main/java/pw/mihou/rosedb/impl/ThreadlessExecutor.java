@@ -0,0 +1,71 @@
+package pw.mihou.rosedb.impl;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An executor without threads of its own, the tasks are run by the thread that waits for
+ * the result of the request instead which saves the hop to another thread and back. Tasks
+ * that arrive after the wait is over are run on the thread that submits them.
+ */
+class ThreadlessExecutor implements Executor {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread waiter = Thread.currentThread();
+    private volatile boolean done = false;
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (done) {
+            drain();
+        } else {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Runs the tasks of the request on the calling thread until the future is complete,
+     * this must be called by the thread that created the executor.
+     * @param future the future of the request.
+     * @param <T> the type of the result.
+     * @return the result of the future.
+     * @throws java.util.concurrent.CompletionException if the future has failed.
+     */
+    <T> T await(CompletableFuture<T> future) {
+        // The future may also be completed by another thread without a task ever arriving, e.g. a coalesced read.
+        if (!future.isDone())
+            future.whenComplete((result, throwable) -> LockSupport.unpark(waiter));
+
+        boolean interrupted = false;
+        while (!future.isDone()) {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                task.run();
+                continue;
+            }
+
+            LockSupport.park(this);
+            if (Thread.interrupted())
+                interrupted = true;
+        }
+
+        done = true;
+        drain();
+        if (interrupted)
+            waiter.interrupt();
+
+        return future.join();
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package pw.mihou.rosedb.io;
+
+import java.util.List;
+
+/**
+ * A request to the server before it is encoded, values are kept as they were given
+ * and are only written out once the request is encoded by {@link RequestEncoder}.
+ */
+public class Request {
+
+    private final String method;
+    private final String database;
+    private String collection;
+    private String identifier;
+    private Object key;
+    private Object value;
+    private List<Request> requests;
+
+    /**
+     * Creates a new request.
+     * @param method the method of the request.
+     * @param database the database the request targets, null for requests without one.
+     */
+    public Request(String method, String database){
+        this.method = method;
+        this.database = database;
+    }
+
+    /**
+     * Sets the collection the request targets.
+     * @param collection the collection.
+     * @return Request for chain-calling methods.
+     */
+    public Request collection(String collection){
+        this.collection = collection;
+        return this;
+    }
+
+    /**
+     * Sets the identifier of the item the request targets.
+     * @param identifier the identifier.
+     * @return Request for chain-calling methods.
+     */
+    public Request identifier(String identifier){
+        this.identifier = identifier;
+        return this;
+    }
+
+    /**
+     * Sets the key of the request, either a single key or a collection of keys.
+     * @param key the key or keys.
+     * @return Request for chain-calling methods.
+     */
+    public Request key(Object key){
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * Sets the value of the request, collections are written as arrays.
+     * @param value the value.
+     * @return Request for chain-calling methods.
+     */
+    public Request value(Object value){
+        this.value = value;
+        return this;
+    }
+
+    /**
+     * Sets the requests that are carried by a batched request.
+     * @param requests the requests of the batch.
+     * @return Request for chain-calling methods.
+     */
+    public Request requests(List<Request> requests){
+        this.requests = requests;
+        return this;
+    }
+
+    public String getMethod(){
+        return method;
+    }
+
+    public String getDatabase(){
+        return database;
+    }
+
+    public String getCollection(){
+        return collection;
+    }
+
+    public String getIdentifier(){
+        return identifier;
+    }
+
+    public Object getKey(){
+        return key;
+    }
+
+    public Object getValue(){
+        return value;
+    }
+
+    public List<Request> getRequests(){
+        return requests;
+    }
+
+}
@@ -0,0 +1,148 @@
+package pw.mihou.rosedb.io;
+
+import org.json.JSONObject;
+
+import java.util.Collection;
+
+/**
+ * Encodes requests straight into a buffer that is reused by every request of the same
+ * thread, no intermediate JSONObject or list is created for the request or its values.
+ */
+public class RequestEncoder {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAXIMUM_RETAINED_CAPACITY = 64 * 1024;
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    /**
+     * Encodes the request into the frame that is sent to the server.
+     * @param request the request.
+     * @param unique the unique value the server replies with, null to leave it out.
+     * @return the encoded frame.
+     */
+    public static String encode(Request request, String unique){
+        StringBuilder builder = buffers.get();
+        builder.setLength(0);
+        write(builder, request, unique);
+
+        String frame = builder.toString();
+        // Buffers that grew for an unusually large request are not kept around.
+        if (builder.capacity() > MAXIMUM_RETAINED_CAPACITY)
+            buffers.set(new StringBuilder(INITIAL_CAPACITY));
+
+        return frame;
+    }
+
+    private static void write(StringBuilder builder, Request request, String unique){
+        builder.append("{\"method\":");
+        quote(builder, request.getMethod());
+        field(builder, "database", request.getDatabase());
+        field(builder, "collection", request.getCollection());
+        field(builder, "identifier", request.getIdentifier());
+        field(builder, "key", request.getKey());
+        field(builder, "value", request.getValue());
+
+        if (request.getRequests() != null) {
+            builder.append(",\"requests\":[");
+            boolean first = true;
+            for (Request child : request.getRequests()) {
+                if (!first)
+                    builder.append(',');
+
+                write(builder, child, null);
+                first = false;
+            }
+            builder.append(']');
+        }
+
+        field(builder, "unique", unique);
+        builder.append('}');
+    }
+
+    /**
+     * Writes the field unless the value is null, which is the same as what
+     * JSONObject does when a null value is put into it.
+     */
+    private static void field(StringBuilder builder, String name, Object value){
+        if (value == null)
+            return;
+
+        builder.append(",\"").append(name).append("\":");
+        value(builder, value, false);
+    }
+
+    private static void value(StringBuilder builder, Object value, boolean nested){
+        if (value == null || JSONObject.NULL.equals(value)) {
+            builder.append("null");
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            quote(builder, value.toString());
+        } else if (value instanceof Boolean) {
+            builder.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            builder.append(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            JSONObject.testValidity(value);
+            builder.append(JSONObject.numberToString((Number) value));
+        } else if (value instanceof Collection) {
+            builder.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first)
+                    builder.append(',');
+
+                value(builder, element, true);
+                first = false;
+            }
+            builder.append(']');
+        } else {
+            // Anything else is written exactly how JSONObject would have written it.
+            builder.append(JSONObject.valueToString(nested ? JSONObject.wrap(value) : value));
+        }
+    }
+
+    private static void quote(StringBuilder builder, String value){
+        builder.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != LINE_SEPARATOR && c != PARAGRAPH_SEPARATOR)
+                continue;
+
+            builder.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\b':
+                    builder.append("\\b");
+                    break;
+                case '\f':
+                    builder.append("\\f");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    builder.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+                            .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+            }
+        }
+
+        builder.append(value, start, length).append('"');
+    }
+
+}
@@ -5,17 +5,35 @@ import java.util.concurrent.*;
 public class Scheduler {
 
     private static final int CORE_POOL_SIZE = 1;
-    private static final int MAXIMUM_POOL_SIZE = Integer.MAX_VALUE;
+    private static final int MAXIMUM_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
     private static final int KEEP_ALIVE_TIME = 120;
     private static final TimeUnit TIME_UNIT = TimeUnit.SECONDS;
+    private static final int TICK_DURATION = 5;
+    private static final int TICKS_PER_WHEEL = 512;
 
-    public static final ExecutorService executorService = new ThreadPoolExecutor(
-            CORE_POOL_SIZE, MAXIMUM_POOL_SIZE, KEEP_ALIVE_TIME, TIME_UNIT, new SynchronousQueue<>(),
-            new ThreadFactory("RoseDB - Executor - %d", false));
+    /**
+     * The default executor of the drivers, the amount of threads is bounded by the amount of processors and tasks
+     * beyond that wait in the queue instead of spawning more threads, so tasks should not block on each other.
+     */
+    public static final ExecutorService executorService = newExecutor(MAXIMUM_POOL_SIZE);
 
     public static final ScheduledExecutorService scheduledExecutorService =
             Executors.newScheduledThreadPool(CORE_POOL_SIZE, new ThreadFactory("RoseDB - Scheduler - %d", false));
 
+    public static final TimerWheel timerWheel = new TimerWheel(TICK_DURATION, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL, "RoseDB - Timer - %d");
+
+    /**
+     * Creates an executor with at most the given amount of threads, idle threads are stopped after a while.
+     * @param threads the maximum amount of threads.
+     * @return the executor.
+     */
+    public static ExecutorService newExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TIME_UNIT,
+                new LinkedBlockingQueue<>(), new ThreadFactory("RoseDB - Executor - %d", false));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public static ScheduledExecutorService getScheduler() {
         return scheduledExecutorService;
     }
@@ -28,6 +46,10 @@ public class Scheduler {
         return scheduledExecutorService.schedule(task, delay, measurement);
     }
 
+    public static TimerWheel.Timeout timeout(Runnable task, long delay, TimeUnit measurement) {
+        return timerWheel.schedule(task, delay, measurement);
+    }
+
     public static CompletableFuture<Void> submit(Runnable task) {
         return CompletableFuture.runAsync(task, executorService);
     }
@@ -0,0 +1,227 @@
+package pw.mihou.rosedb.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel which runs the timeouts of every request on a single thread, scheduling and
+ * cancelling a timeout only adds it to a queue and the thread sleeps for as long as there is nothing
+ * scheduled. Timeouts run at most one tick late and their tasks run on the thread of the wheel, so
+ * they should be short.
+ */
+public class TimerWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long start = System.nanoTime();
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+
+    /**
+     * Creates a timer wheel and starts its thread.
+     * @param tickDuration how often the wheel checks for expired timeouts.
+     * @param unit the unit of the tick duration.
+     * @param ticksPerWheel the amount of buckets of the wheel, rounded up to a power of two.
+     * @param name the name of the thread of the wheel.
+     */
+    public TimerWheel(long tickDuration, TimeUnit unit, int ticksPerWheel, String name){
+        if (tickDuration <= 0 || ticksPerWheel < 1)
+            throw new IllegalArgumentException("The tick duration and the amount of ticks per wheel must be positive.");
+
+        int size = Integer.highestOneBit(ticksPerWheel - 1 < 1 ? 1 : ticksPerWheel - 1) << 1;
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+
+        this.worker = new ThreadFactory(name, true).newThread(this::run);
+        worker.start();
+    }
+
+    /**
+     * Runs the task once the delay has passed unless the timeout is cancelled before that.
+     * @param task the task to run.
+     * @param delay the delay.
+     * @param unit the unit of the delay.
+     * @return the timeout which can be cancelled.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit){
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay));
+        scheduled.add(timeout);
+        if (pending.getAndIncrement() == 0)
+            LockSupport.unpark(worker);
+
+        return timeout;
+    }
+
+    /**
+     * Gets the amount of timeouts that have neither expired nor been cancelled.
+     * @return the amount of pending timeouts.
+     */
+    public int getPending(){
+        return pending.get();
+    }
+
+    private void run(){
+        long tick = 0;
+        while (true) {
+            if (pending.get() == 0) {
+                LockSupport.park(this);
+                // Every tick that passed while idle was empty, so the wheel simply catches up with the clock.
+                tick = Math.max(tick, (System.nanoTime() - start) / tickDuration);
+            }
+
+            long deadline = start + (tick + 1) * tickDuration;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            transfer(tick);
+            Timeout timeout;
+            while ((timeout = cancelled.poll()) != null) {
+                if (timeout.bucket != null)
+                    timeout.bucket.remove(timeout);
+            }
+
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transfer(long tick){
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state != Timeout.WAITING)
+                continue;
+
+            long ticks = (timeout.deadline - start) / tickDuration;
+            timeout.rounds = (ticks - tick) / wheel.length;
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket){
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                bucket.remove(timeout);
+                if (Timeout.STATE.compareAndSet(timeout, Timeout.WAITING, Timeout.EXPIRED)) {
+                    pending.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable e) {
+                        log.error("A timeout has thrown an exception: {}", e.getMessage(), e);
+                    }
+                }
+            }
+
+            timeout = next;
+        }
+    }
+
+    /**
+     * A scheduled task of the wheel.
+     */
+    public static final class Timeout {
+
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = WAITING;
+
+        // Only ever touched by the thread of the wheel.
+        private long rounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline){
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout, the task will not run afterwards.
+         * @return whether the timeout was cancelled before it expired.
+         */
+        public boolean cancel(){
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED))
+                return false;
+
+            wheel.pending.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired(){
+            return state == EXPIRED;
+        }
+
+        public boolean isCancelled(){
+            return state == CANCELLED;
+        }
+
+    }
+
+    /**
+     * A doubly linked list of timeouts, only ever touched by the thread of the wheel.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout){
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout){
+            if (timeout.prev != null)
+                timeout.prev.next = timeout.next;
+            else
+                head = timeout.next;
+
+            if (timeout.next != null)
+                timeout.next.prev = timeout.prev;
+            else
+                tail = timeout.prev;
+
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+
+    }
+
+}
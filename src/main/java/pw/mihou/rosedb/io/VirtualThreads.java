@@ -0,0 +1,29 @@
+package pw.mihou.rosedb.io;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates executors that run every task on a virtual thread of its own. Virtual threads need Java 21,
+ * this class is replaced by the one in META-INF/versions/21 of the jar when running on Java 21 or above.
+ */
+public class VirtualThreads {
+
+    /**
+     * Checks whether virtual threads are available on this runtime.
+     * @return whether virtual threads are available.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every task.
+     * @param name the name of the virtual threads.
+     * @return the executor.
+     * @throws UnsupportedOperationException if virtual threads are not available on this runtime.
+     */
+    public static ExecutorService newExecutor(String name) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or above.");
+    }
+
+}
@@ -0,0 +1,144 @@
+package pw.mihou.rosedb.manager;
+
+import pw.mihou.rosedb.RoseBuilder;
+import pw.mihou.rosedb.clients.MainClient;
+import pw.mihou.rosedb.enums.Routing;
+import pw.mihou.rosedb.exceptions.FailedConnectionException;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionManager {
+
+    private final MainClient[] clients;
+    private final Routing routing;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ConnectionManager(URI connection, String authentication, RoseBuilder builder,
+                             ListenerManager listenerManager, ResponseManager responseManager){
+        this.routing = builder.getRouting();
+        this.clients = new MainClient[builder.getConnections()];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new MainClient(connection, builder.getMaxInFlight(), (int) builder.getTimeUnit().toMillis(builder.getTimeout()),
+                    builder.getExecutor(), listenerManager, responseManager, builder.getMetrics(), builder.getRequestTracer());
+            clients[i].addHeader("Authorization", authentication);
+        }
+    }
+
+    /**
+     * Connects every client of the pool to the server.
+     * @param timeout the timeout of each connection attempt.
+     * @param unit the unit of the timeout.
+     * @param blocking whether to block until the clients are connected.
+     * @throws FailedConnectionException if a blocking connection fails.
+     */
+    public void connect(int timeout, TimeUnit unit, boolean blocking) throws FailedConnectionException {
+        for (MainClient client : clients) {
+            client.connect(timeout, unit, blocking);
+        }
+    }
+
+    /**
+     * Sets what runs whenever one of the clients has opened its connection, both
+     * on the first connection and after every reconnection.
+     * @param callback the callback.
+     */
+    public void onOpen(Runnable callback){
+        for (MainClient client : clients) {
+            client.setOpenCallback(callback);
+        }
+    }
+
+    /**
+     * Picks the client that the next request should be written to and reserves room
+     * for the request on it, clients that are disconnected are skipped since they
+     * reconnect on their own and so are clients that have no more room left.
+     * @return the client to use, null if none of the clients can take the request.
+     */
+    public MainClient acquire(){
+        if (clients.length == 1)
+            return isAvailable(clients[0]) && clients[0].tryAcquire() ? clients[0] : null;
+
+        if (routing == Routing.ROUND_ROBIN) {
+            int start = Math.floorMod(counter.getAndIncrement(), clients.length);
+            for (int i = 0; i < clients.length; i++) {
+                MainClient client = clients[(start + i) % clients.length];
+                if (isAvailable(client) && client.tryAcquire())
+                    return client;
+            }
+
+            return null;
+        }
+
+        // The least loaded client may fill up between picking and reserving, retry with the rest.
+        for (int attempt = 0; attempt < clients.length; attempt++) {
+            MainClient selected = null;
+            int load = Integer.MAX_VALUE;
+            for (MainClient client : clients) {
+                int inFlight = client.getInFlight();
+                if (isAvailable(client) && inFlight < load) {
+                    selected = client;
+                    load = inFlight;
+                }
+            }
+
+            if (selected == null)
+                return null;
+
+            if (selected.tryAcquire())
+                return selected;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether at least one of the clients is connected to the server.
+     * @return whether requests can currently be written to the server.
+     */
+    public boolean isConnected(){
+        for (MainClient client : clients) {
+            if (isAvailable(client))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Closes every client that has no more requests in flight.
+     * @param code the close code.
+     * @param message the message to send to the server.
+     * @return whether all the clients of the pool are now closed.
+     */
+    public boolean closeDrained(int code, String message){
+        boolean closed = true;
+        for (MainClient client : clients) {
+            if (client.getInFlight() == 0) {
+                if (!client.isClosing() && !client.isClosed())
+                    client.close(code, message);
+            } else {
+                closed = false;
+            }
+        }
+
+        return closed;
+    }
+
+    /**
+     * Closes every client of the pool regardless of their requests.
+     * @param code the close code.
+     * @param message the message to send to the server.
+     */
+    public void close(int code, String message){
+        for (MainClient client : clients) {
+            client.close(code, message);
+        }
+    }
+
+    private boolean isAvailable(MainClient client){
+        return client.isOpen() || client.isConnected();
+    }
+
+}
@@ -5,40 +5,135 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pw.mihou.rosedb.enums.Listening;
+import pw.mihou.rosedb.io.ThreadFactory;
 import pw.mihou.rosedb.listeners.interfaces.Listener;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 public class ListenerManager {
 
-    private static final List<Listener> listeners = new ArrayList<>();
+    private static final Listener[] EMPTY = new Listener[0];
     private static final Logger log = LoggerFactory.getLogger(ListenerManager.class);
 
-    public static void pass(JSONObject response){
-        if(!response.isNull("kode") && !response.isNull("replyTo")){
-            listeners.stream().filter(listener -> listener.type() == Listening.RECEIVE).forEach(listener -> listener.execute(response));
+    // One array per type which is replaced on every change, dispatching never locks nor filters.
+    private final AtomicReferenceArray<Listener[]> listeners = new AtomicReferenceArray<>(Listening.values().length);
+    private final ExecutorService executor;
+
+    /**
+     * Creates a listener manager that runs the listeners on the thread
+     * that received the event.
+     */
+    public ListenerManager(){
+        this(0);
+    }
+
+    /**
+     * Creates a listener manager that runs the listeners on a dedicated thread, events
+     * are dropped once the queue is full so that a slow listener never holds up the connection.
+     * @param queueSize the maximum amount of events waiting for the listeners, 0 to run the
+     *                  listeners on the thread that received the event instead.
+     */
+    public ListenerManager(int queueSize){
+        for (int i = 0; i < listeners.length(); i++) {
+            listeners.set(i, EMPTY);
         }
+
+        this.executor = queueSize > 0 ? new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadFactory("RoseDB - Listeners - %d", true)) : null;
+    }
+
+    /**
+     * Passes a reply from the server to the receive listeners, the reply is
+     * only parsed if there is at least one receive listener.
+     * @param frame the raw reply from the server.
+     */
+    public void pass(String frame){
+        dispatch(Listening.RECEIVE, () -> new JSONObject(frame));
     }
 
-    public static void connect(ServerHandshake handshake){
+    public void connect(ServerHandshake handshake){
         log.debug("Received a handshake from the server: {}, {}", handshake.getHttpStatus(), handshake.getHttpStatusMessage());
-        listeners.stream().filter(listener -> listener.type() == Listening.OPEN).forEach(listener -> listener.execute(new JSONObject()
-        .put("httpStatus", handshake.getHttpStatus()).put("message", handshake.getHttpStatusMessage())));
+        dispatch(Listening.OPEN, () -> new JSONObject().put("httpStatus", handshake.getHttpStatus())
+                .put("message", handshake.getHttpStatusMessage()));
     }
 
-    public static void close(int i, String s, boolean b){
+    public void close(int i, String s, boolean b){
         // I don't know much about what i, s, b are so I will leave that there.
-        listeners.stream().filter(listener -> listener.type() == Listening.CLOSE)
-        .forEach(listener -> listener.execute(new JSONObject().put("i", i).put("s", s).put("b", b)));
+        dispatch(Listening.CLOSE, () -> new JSONObject().put("i", i).put("s", s).put("b", b));
     }
 
-    public static void addListener(Listener listener){
-        listeners.add(listener);
+    /**
+     * Adds the listener, adding a listener that was already added does nothing.
+     * @param listener the listener to add.
+     */
+    public synchronized void addListener(Listener listener){
+        Listener[] current = listeners.get(listener.type().ordinal());
+        for (Listener existing : current) {
+            if (existing == listener)
+                return;
+        }
+
+        Listener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners.set(listener.type().ordinal(), updated);
     }
 
-    public static void removeListener(Listener listener){
-        listeners.remove(listener);
+    public synchronized void removeListener(Listener listener){
+        Listener[] current = listeners.get(listener.type().ordinal());
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != listener)
+                continue;
+
+            Listener[] updated = new Listener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            listeners.set(listener.type().ordinal(), updated.length == 0 ? EMPTY : updated);
+            return;
+        }
+    }
+
+    /**
+     * Stops the dedicated thread of the listeners, if there is one.
+     */
+    public void shutdown(){
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    private void dispatch(Listening type, Supplier<JSONObject> event){
+        Listener[] targets = listeners.get(type.ordinal());
+        if (targets.length == 0)
+            return;
+
+        if (executor == null) {
+            execute(targets, event);
+            return;
+        }
+
+        try {
+            executor.execute(() -> execute(targets, event));
+        } catch (RejectedExecutionException e) {
+            if (!executor.isShutdown())
+                log.warn("The listeners are falling behind, dropping a {} event.", type);
+        }
+    }
+
+    private static void execute(Listener[] targets, Supplier<JSONObject> event){
+        JSONObject response = event.get();
+        for (Listener listener : targets) {
+            try {
+                listener.execute(response);
+            } catch (RuntimeException e) {
+                log.error("A listener has thrown an exception: {}", e.getMessage(), e);
+            }
+        }
     }
 
 }
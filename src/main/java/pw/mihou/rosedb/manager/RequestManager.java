@@ -1,10 +1,326 @@
 package pw.mihou.rosedb.manager;
 
-import java.util.ArrayList;
-import java.util.List;
+import pw.mihou.rosedb.RoseBuilder;
+import pw.mihou.rosedb.clients.MainClient;
+import pw.mihou.rosedb.enums.RejectionPolicy;
+import pw.mihou.rosedb.exceptions.FailedConnectionException;
+import pw.mihou.rosedb.exceptions.RejectedRequestException;
+import pw.mihou.rosedb.exceptions.RequestTimeoutException;
+import pw.mihou.rosedb.io.Scheduler;
+import pw.mihou.rosedb.io.TimerWheel;
+import pw.mihou.rosedb.metrics.RoseMetrics;
+import pw.mihou.rosedb.tracing.RequestTracer;
+import pw.mihou.rosedb.utility.RoseUtility;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RequestManager {
 
-    public static final List<String> requests = new ArrayList<>();
+    private static final long MINIMUM_SWEEP_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ConnectionManager connectionManager;
+    private final ResponseManager responseManager;
+    private final BlockingDeque<Request> queue;
+    private final RejectionPolicy policy;
+    private final long queueTimeout;
+    private final RoseMetrics metrics;
+    private final RequestTracer tracer;
+    private final ScheduledFuture<?> sweeper;
+    private final AtomicInteger draining = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public RequestManager(ConnectionManager connectionManager, ResponseManager responseManager, RoseBuilder builder){
+        this.connectionManager = connectionManager;
+        this.responseManager = responseManager;
+        this.queue = new LinkedBlockingDeque<>(builder.getQueueSize());
+        this.policy = builder.getRejectionPolicy();
+        this.queueTimeout = builder.getQueueTimeout();
+        this.metrics = builder.getMetrics();
+        this.tracer = builder.getRequestTracer();
+        this.sweeper = queueTimeout > 0 ? Scheduler.schedule(this::expire, Math.max(queueTimeout / 4, MINIMUM_SWEEP_INTERVAL),
+                Math.max(queueTimeout / 4, MINIMUM_SWEEP_INTERVAL), TimeUnit.NANOSECONDS) : null;
+
+        // Everything that queued up while the connection was down is sent as soon as it is back.
+        connectionManager.onOpen(this::drain);
+    }
+
+    /**
+     * Writes the request to one of the connections, if every connection has reached its
+     * maximum amount of requests in flight or the driver is disconnected then the request
+     * waits in the queue until it can be written.
+     * @param unique the unique value of the request.
+     * @param request the serialized request.
+     * @param replayable whether the request may be written again if its connection is lost
+     *                   before the server replies to it.
+     * @param timeout how long the server has to reply, in nanoseconds, the deadline starts right away and
+     *                includes the time spent waiting for room as well as every replay of the request, only
+     *                the time spent waiting for the connection to come back is left to the queue timeout.
+     * @return the raw response from the server, which is completed on the thread of a connection or
+     * of the timer wheel so anything attached to it must be short or hand off to another executor.
+     */
+    public CompletableFuture<String> send(String unique, String request, boolean replayable, long timeout){
+        Request entry = new Request(unique, request, replayable, timeout);
+        arm(entry);
+        entry.future.whenComplete((response, throwable) -> entry.expiry.cancel());
+
+        if (queue.isEmpty()) {
+            MainClient client = connectionManager.acquire();
+            if (client != null) {
+                write(client, entry);
+                return entry.future;
+            }
+        }
+
+        // Waiting for room is fine but waiting for the connection to come back could take forever.
+        if (policy == RejectionPolicy.BLOCK && connectionManager.isConnected()) {
+            try {
+                entry.queued = System.nanoTime();
+                queue.putLast(entry);
+                tracer.onQueued(entry.unique, entry.queued);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reject(entry, "The request was interrupted while waiting for room in the queue.");
+                return entry.future;
+            }
+        } else if (!park(entry, false)) {
+            reject(entry, connectionManager.isConnected() ?
+                    "Every connection has reached its maximum amount of requests in flight and the queue is full." :
+                    "The driver is disconnected from the server and the queue is full.");
+            return entry.future;
+        }
+
+        drain();
+        return entry.future;
+    }
+
+    /**
+     * Gets the amount of requests that are waiting for room on the connections.
+     * @return the amount of queued requests.
+     */
+    public int getQueued(){
+        return queue.size();
+    }
+
+    /**
+     * Writes as many of the queued requests as the connections have room for, only one thread
+     * drains at a time so that the requests are written in the order they were queued.
+     */
+    public void drain(){
+        if (draining.getAndIncrement() != 0)
+            return;
+
+        int missed = 1;
+        do {
+            drain0();
+        } while ((missed = draining.addAndGet(-missed)) != 0);
+    }
+
+    private void drain0(){
+        while (!queue.isEmpty()) {
+            MainClient client = connectionManager.acquire();
+            if (client == null)
+                return;
+
+            Request entry = queue.pollFirst();
+            if (entry == null) {
+                client.release();
+                return;
+            }
+
+            // Requests that have already failed while queued are not worth sending.
+            if (entry.future.isDone()) {
+                client.release();
+                continue;
+            }
+
+            if (entry.paused) {
+                entry.paused = false;
+                arm(entry);
+            }
+
+            if (!write(client, entry))
+                return;
+        }
+    }
+
+    /**
+     * Fails every queued request and stops queueing new ones, this is
+     * used once the driver has been shut down.
+     * @param reason the reason the requests are failed with.
+     */
+    public void close(String reason){
+        closed = true;
+        if (sweeper != null)
+            sweeper.cancel(false);
+
+        Request entry;
+        while ((entry = queue.pollFirst()) != null) {
+            entry.future.completeExceptionally(new FailedConnectionException(reason));
+        }
+    }
+
+    /**
+     * Writes the request to the client.
+     * @param client the client, room must have been reserved on it.
+     * @param entry the request.
+     * @return whether the request was written, the connection has just been lost otherwise.
+     */
+    private boolean write(MainClient client, Request entry){
+        // Every attempt has its own pending future so that a late reply to an earlier attempt is ignored.
+        CompletableFuture<String> attempt = responseManager.register(entry.unique);
+        entry.attempt = attempt;
+        if (entry.future.isDone()) {
+            // The deadline passed while the request was being handed over, the connection is left untouched.
+            responseManager.remove(entry.unique, attempt);
+            client.release();
+            return true;
+        }
+
+        client.track(entry.unique);
+        try {
+            client.send(entry.request);
+        } catch (Exception e) {
+            client.untrack(entry.unique);
+            responseManager.remove(entry.unique, attempt);
+            // The request never left, so it may always wait for the connection to come back.
+            if (!park(entry, true))
+                entry.future.completeExceptionally(e);
+            return false;
+        }
+
+        if (metrics != RoseMetrics.NOOP || tracer != RequestTracer.NOOP) {
+            int bytes = RoseUtility.utf8Length(entry.request);
+            metrics.onSent(bytes);
+            tracer.onWritten(entry.unique, bytes, System.nanoTime());
+        }
+
+        attempt.whenComplete((response, throwable) -> {
+            client.untrack(entry.unique);
+            if (throwable == null) {
+                entry.future.complete(response);
+            } else {
+                // Expired requests leave the pending table right away so that a late reply is simply ignored.
+                responseManager.remove(entry.unique, attempt);
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                if (!(cause instanceof FailedConnectionException && entry.replayable && park(entry, true)))
+                    entry.future.completeExceptionally(cause);
+            }
+
+            drain();
+        });
+        return true;
+    }
+
+    /**
+     * Places the request into the queue without blocking.
+     * @param entry the request.
+     * @param replay whether the request was already written, replayed requests go
+     *               in front of the queue since they were sent before anything in it.
+     * @return whether the request was queued.
+     */
+    private boolean park(Request entry, boolean replay){
+        if (closed)
+            return false;
+
+        // Waiting for the connection to come back is bounded by the queue timeout instead of the deadline.
+        if (!connectionManager.isConnected())
+            pause(entry);
+
+        entry.queued = System.nanoTime();
+        if (!(replay ? queue.offerFirst(entry) : queue.offerLast(entry)))
+            return false;
+
+        tracer.onQueued(entry.unique, entry.queued);
+        return true;
+    }
+
+    /**
+     * Starts the deadline of the request with whatever is left of it.
+     * @param entry the request.
+     */
+    private void arm(Request entry){
+        entry.armed = System.nanoTime();
+        entry.expiry = Scheduler.timeout(() -> expire(entry), entry.remaining, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the deadline of the request until it is armed again, the time that
+     * has passed so far still counts against the request.
+     * @param entry the request.
+     */
+    private void pause(Request entry){
+        if (!entry.paused && entry.expiry.cancel()) {
+            entry.remaining -= System.nanoTime() - entry.armed;
+            entry.paused = true;
+        }
+    }
+
+    /**
+     * Fails the request once its deadline has passed, wherever it is at the time: the queued
+     * request leaves the queue and the request in flight stops waiting for its reply.
+     * @param entry the request.
+     */
+    private void expire(Request entry){
+        RequestTimeoutException exception = new RequestTimeoutException(entry.timeout);
+        if (!entry.future.completeExceptionally(exception))
+            return;
+
+        metrics.onTimeout();
+        CompletableFuture<String> attempt = entry.attempt;
+        if (attempt != null)
+            attempt.completeExceptionally(exception);
+
+        if (entry.queued != 0)
+            queue.remove(entry);
+    }
+
+    private void expire(){
+        if (queue.isEmpty())
+            return;
+
+        long now = System.nanoTime();
+        queue.removeIf(entry -> {
+            if (now - entry.queued < queueTimeout)
+                return false;
+
+            entry.future.completeExceptionally(new FailedConnectionException("The request has waited in the queue for longer than "
+                    + TimeUnit.NANOSECONDS.toMillis(queueTimeout) + " milliseconds."));
+            return true;
+        });
+    }
+
+    private void reject(Request entry, String reason){
+        entry.future.completeExceptionally(new RejectedRequestException(reason));
+    }
+
+    private static class Request {
+
+        private final String unique;
+        private final String request;
+        private final boolean replayable;
+        private final long timeout;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private volatile CompletableFuture<String> attempt;
+        private volatile long queued;
+        private volatile TimerWheel.Timeout expiry;
+        private volatile long remaining;
+        private volatile long armed;
+        private volatile boolean paused;
+
+        private Request(String unique, String request, boolean replayable, long timeout){
+            this.unique = unique;
+            this.request = request;
+            this.replayable = replayable;
+            this.timeout = timeout;
+            this.remaining = timeout;
+        }
+
+    }
 
 }
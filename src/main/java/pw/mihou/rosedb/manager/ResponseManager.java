@@ -1,21 +1,69 @@
 package pw.mihou.rosedb.manager;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class ResponseManager {
 
-    public static final Map<String, String> responses = new ConcurrentHashMap<>();
+    private static final int INITIAL_CAPACITY = 256;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int CONCURRENCY_LEVEL = Runtime.getRuntime().availableProcessors() * 4;
 
-    public static String get(String key){
-        String t = responses.get(key);
-        responses.remove(key);
-        RequestManager.requests.remove(key);
-        return t;
+    private final Map<String, CompletableFuture<String>> responses = new ConcurrentHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, CONCURRENCY_LEVEL);
+
+    /**
+     * Registers a pending request under its unique value, the returned
+     * future is completed as soon as the server replies to it.
+     * @param key the unique value of the request.
+     * @return the future that will hold the raw response.
+     */
+    public CompletableFuture<String> register(String key){
+        CompletableFuture<String> future = new CompletableFuture<>();
+        responses.put(key, future);
+        return future;
+    }
+
+    /**
+     * Completes the pending request that has the unique value, replies
+     * to requests that are no longer pending are ignored.
+     * @param key the unique value the server replied to.
+     * @param response the raw response from the server.
+     */
+    public void complete(String key, String response){
+        CompletableFuture<String> future = remove(key);
+        if(future != null)
+            future.complete(response);
+    }
+
+    /**
+     * Removes the pending request without completing it.
+     * @param key the unique value of the request.
+     * @return the future of the request, null if it was no longer pending.
+     */
+    public CompletableFuture<String> remove(String key){
+        return responses.remove(key);
+    }
+
+    /**
+     * Removes the pending request only if it is still the given future, this leaves
+     * a newer attempt of the same request that is pending under the same unique value alone.
+     * @param key the unique value of the request.
+     * @param future the future of the request.
+     * @return whether the request was removed.
+     */
+    public boolean remove(String key, CompletableFuture<String> future){
+        return responses.remove(key, future);
     }
 
-    public static boolean isNull(String key){
-        return responses.get(key) == null;
+    /**
+     * Returns the unique values of all the requests that are still
+     * waiting for a reply from the server.
+     * @return a live view of the pending requests.
+     */
+    public Set<String> getPending(){
+        return responses.keySet();
     }
 
 }
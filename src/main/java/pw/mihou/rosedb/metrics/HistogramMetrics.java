@@ -0,0 +1,128 @@
+package pw.mihou.rosedb.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics that come with the driver, the latency of every operation is recorded into a histogram
+ * of its own and everything else is counted. The metrics can be read at any time while the driver runs.
+ */
+public class HistogramMetrics implements RoseMetrics {
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final LatencyHistogram decoding = new LatencyHistogram();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    @Override
+    public void onStart(String operation) {
+        inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(String operation, long latency, boolean successful) {
+        inFlight.decrementAndGet();
+        latencies.computeIfAbsent(operation, key -> new LatencyHistogram()).record(latency);
+        if (!successful)
+            failures.computeIfAbsent(operation, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onSent(int bytes) {
+        sent.add(bytes);
+    }
+
+    @Override
+    public void onReceived(int bytes) {
+        received.add(bytes);
+    }
+
+    @Override
+    public void onDecoded(String operation, long duration) {
+        decoding.record(duration);
+    }
+
+    @Override
+    public void onTimeout() {
+        timeouts.increment();
+    }
+
+    @Override
+    public void onReconnect() {
+        reconnects.increment();
+    }
+
+    /**
+     * Gets the latencies of an operation, which includes the operations that failed.
+     * @param operation the operation, e.g. get.
+     * @return the latencies of the operation.
+     */
+    public LatencySnapshot getLatency(String operation){
+        LatencyHistogram histogram = latencies.get(operation);
+        return histogram == null ? new LatencyHistogram().snapshot() : histogram.snapshot();
+    }
+
+    /**
+     * Gets the operations that have completed at least once.
+     * @return the operations.
+     */
+    public Set<String> getOperations(){
+        return Collections.unmodifiableSet(latencies.keySet());
+    }
+
+    /**
+     * Gets the amount of times an operation has failed.
+     * @param operation the operation, e.g. get.
+     * @return the amount of failures.
+     */
+    public long getFailures(String operation){
+        LongAdder adder = failures.get(operation);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Gets the time spent decoding replies and the documents of aggregations.
+     * @return the decoding times.
+     */
+    public LatencySnapshot getDecoding(){
+        return decoding.snapshot();
+    }
+
+    /**
+     * Gets the amount of operations that have started but not yet completed.
+     * @return the amount of operations in flight.
+     */
+    public int getInFlight(){
+        return inFlight.get();
+    }
+
+    public long getBytesSent(){
+        return sent.sum();
+    }
+
+    public long getBytesReceived(){
+        return received.sum();
+    }
+
+    public long getTimeouts(){
+        return timeouts.sum();
+    }
+
+    public long getReconnects(){
+        return reconnects.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramMetrics{inFlight=" + getInFlight() + ", bytesSent=" + getBytesSent() + ", bytesReceived=" + getBytesReceived()
+                + ", timeouts=" + getTimeouts() + ", reconnects=" + getReconnects() + ", latencies=" + latencies + "}";
+    }
+}
@@ -0,0 +1,82 @@
+package pw.mihou.rosedb.metrics;
+
+public class LatencySnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    LatencySnapshot(long[] counts, long count, long total, long max){
+        this.counts = counts;
+        this.count = count;
+        this.total = total;
+        this.max = max;
+    }
+
+    /**
+     * Gets the amount of recorded values.
+     * @return the amount of values.
+     */
+    public long getCount(){
+        return count;
+    }
+
+    /**
+     * Gets the average of the recorded values.
+     * @return the mean in nanoseconds, zero if nothing was recorded.
+     */
+    public double getMean(){
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Gets the highest recorded value.
+     * @return the maximum in nanoseconds.
+     */
+    public long getMax(){
+        return max;
+    }
+
+    /**
+     * Gets the value that the given percentage of the recorded values are at or below,
+     * the value is at most about three percent higher than the exact percentile.
+     * @param percentile the percentile between 0 and 100.
+     * @return the percentile in nanoseconds, zero if nothing was recorded.
+     */
+    public long getPercentile(double percentile){
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(LatencyHistogram.highest(i), max);
+        }
+
+        return max;
+    }
+
+    public long getP50(){
+        return getPercentile(50);
+    }
+
+    public long getP99(){
+        return getPercentile(99);
+    }
+
+    public long getP999(){
+        return getPercentile(99.9);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{count=" + count + ", mean=" + (long) getMean() + ", p50=" + getP50() + ", p99=" + getP99()
+                + ", p999=" + getP999() + ", max=" + max + "}";
+    }
+}
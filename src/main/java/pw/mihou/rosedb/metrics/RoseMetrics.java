@@ -0,0 +1,61 @@
+package pw.mihou.rosedb.metrics;
+
+/**
+ * Receives the measurements of a driver, every method does nothing by default so implementations
+ * only override what they need. The methods are called on the threads of the driver including the
+ * thread that reads from the connection, so they must be thread-safe and should never block.
+ *
+ * <p>The operations are named after the method of the driver that was called: get, add, update,
+ * aggregate, filter, delete, drop, revert and batch. Latencies and durations are in nanoseconds.</p>
+ */
+public interface RoseMetrics {
+
+    /**
+     * The metrics of a driver that has none, the driver skips measuring entirely with these.
+     */
+    RoseMetrics NOOP = new RoseMetrics() {};
+
+    /**
+     * Called when an operation is started.
+     * @param operation the operation.
+     */
+    default void onStart(String operation) {}
+
+    /**
+     * Called when an operation has completed, successfully or not.
+     * @param operation the operation.
+     * @param latency the time between the start and the completion of the operation.
+     * @param successful whether the operation completed successfully.
+     */
+    default void onComplete(String operation, long latency, boolean successful) {}
+
+    /**
+     * Called when a request has been written to a connection, this includes requests that are written again.
+     * @param bytes the size of the request in bytes.
+     */
+    default void onSent(int bytes) {}
+
+    /**
+     * Called when a frame has been received from the server.
+     * @param bytes the size of the frame in bytes.
+     */
+    default void onReceived(int bytes) {}
+
+    /**
+     * Called when a reply or the documents of an aggregation have been decoded.
+     * @param operation the operation.
+     * @param duration the time spent decoding.
+     */
+    default void onDecoded(String operation, long duration) {}
+
+    /**
+     * Called when the server has not replied to a request in time.
+     */
+    default void onTimeout() {}
+
+    /**
+     * Called when a connection has been opened again after it was lost.
+     */
+    default void onReconnect() {}
+
+}
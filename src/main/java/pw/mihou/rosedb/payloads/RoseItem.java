@@ -1,11 +1,16 @@
 package pw.mihou.rosedb.payloads;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import pw.mihou.rosedb.utility.RoseUtility;
 
 public class RoseItem {
 
     private final String response;
+    private volatile JSONObject object;
+    private volatile JsonElement tree;
 
     public RoseItem(String o){
         this.response = o;
@@ -21,24 +26,94 @@ public class RoseItem {
 
     /**
      * Transforms the response into the legacy JSONObject
-     * which allows you to individually handpick what you want.
+     * which allows you to individually handpick what you want,
+     * the response is only parsed once and every call afterwards
+     * returns a fresh copy of it which is yours to modify.
      * @return a JSONObject representative.
      */
     public JSONObject asJSONObject(){
-        return new JSONObject(response);
+        JSONObject o = object;
+        if (o == null) {
+            synchronized (this) {
+                o = object;
+                if (o == null) {
+                    o = new JSONObject(response);
+                    object = o;
+                }
+            }
+        }
+
+        return copy(o);
     }
 
     /**
      * Transforms the response into an object through the help
      * of GSON, please note that it will throw an exception
-     * if the JSON and Object does not match.
+     * if the JSON and Object does not match. The text of the response
+     * is only parsed once but the object itself is never cached, every
+     * call binds a new object from the parsed response which costs about
+     * as much as the first call did, so keep the result around instead of
+     * calling this repeatedly for the same class.
      * @param toClass the class to transform to.
      * @param <T> the type of class.
      * @return the transformed class.
      */
     public <T> T as(Class<T> toClass){
-        return RoseUtility.gson.fromJson(response, toClass);
+        if (response == null)
+            return null;
+
+        JsonElement t = tree;
+        if (t == null) {
+            synchronized (this) {
+                t = tree;
+                if (t == null) {
+                    t = JsonParser.parseString(response);
+                    tree = t;
+                }
+            }
+        }
+
+        return RoseUtility.gson.fromJson(t, toClass);
+    }
+
+    /**
+     * Releases the parsed forms of the response which are usually several times larger than
+     * the response itself, this is useful for items that are kept around for a long time.
+     * The raw response is always kept since it is what the item is made of, which means an
+     * item never takes less memory than its raw response and the next transformation after
+     * this pays for parsing the response again.
+     */
+    public void release(){
+        synchronized (this) {
+            object = null;
+            tree = null;
+        }
     }
 
+    private static JSONObject copy(JSONObject o){
+        JSONObject copy = new JSONObject(o.length());
+        for (String key : o.keySet()) {
+            copy.put(key, copy(o.opt(key)));
+        }
+
+        return copy;
+    }
+
+    private static Object copy(Object value){
+        if (value instanceof JSONObject)
+            return copy((JSONObject) value);
+
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            JSONArray copy = new JSONArray(array.length());
+            for (Object element : array) {
+                copy.put(copy(element));
+            }
+
+            return copy;
+        }
+
+        return value;
+    }
 
 }
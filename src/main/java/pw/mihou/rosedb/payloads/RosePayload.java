@@ -2,7 +2,6 @@ package pw.mihou.rosedb.payloads;
 
 import com.google.gson.annotations.SerializedName;
 import org.json.JSONObject;
-import pw.mihou.rosedb.utility.RoseUtility;
 
 public class RosePayload {
 
@@ -10,13 +9,22 @@ public class RosePayload {
     private String response;
     @SerializedName("kode")
     private int kode = -1;
+    private transient volatile RoseItem item;
+
+    public RosePayload(){
+    }
+
+    public RosePayload(int kode, String response){
+        this.kode = kode;
+        this.response = response;
+    }
 
     /**
      * The raw JSON data response from the server.
      * @return this is the absolute raw response fom the server in the JSON format.
      */
     public String getRaw(){
-        return response;
+        return item().getRaw();
     }
 
     /**
@@ -29,23 +37,51 @@ public class RosePayload {
 
     /**
      * Transforms the response into the legacy JSONObject
-     * which allows you to individually handpick what you want.
+     * which allows you to individually handpick what you want,
+     * the response is only parsed once and every call afterwards
+     * returns a fresh copy of it which is yours to modify.
      * @return a JSONObject representative.
      */
     public JSONObject asJSONObject(){
-        return new JSONObject(response);
+        return item().asJSONObject();
     }
 
     /**
      * Transforms the response into an object through the help
      * of GSON, please note that it will throw an exception
-     * if the JSON and Object does not match.
+     * if the JSON and Object does not match. The text of the response
+     * is only parsed once but the object itself is never cached, see
+     * {@link RoseItem#as(Class)}.
      * @param toClass the class to transform to.
      * @param <T> the type of class.
      * @return the transformed class.
      */
     public <T> T as(Class<T> toClass){
-        return RoseUtility.gson.fromJson(response, toClass);
+        return item().as(toClass);
+    }
+
+    /**
+     * Releases the parsed forms of the response while keeping the raw
+     * response, see {@link RoseItem#release()}.
+     */
+    public void release(){
+        item().release();
+    }
+
+    private RoseItem item(){
+        RoseItem i = item;
+        if (i == null) {
+            synchronized (this) {
+                i = item;
+                if (i == null) {
+                    i = new RoseItem(response);
+                    item = i;
+                    response = null;
+                }
+            }
+        }
+
+        return i;
     }
 
 
@@ -0,0 +1,71 @@
+package pw.mihou.rosedb.tracing;
+
+/**
+ * Follows every request through the stages of the driver, each stage is reported with the unique
+ * value of the request which the server also replies with and a timestamp from {@link System#nanoTime()}.
+ * Every method does nothing by default so implementations only override what they need.
+ *
+ * <p>A request is encoded, then waits in the queue if every connection is busy or down, is written to
+ * a connection, its reply is received and decoded and then its future is completed. Requests that are
+ * replayed after their connection was lost are queued and written again. The methods are called on
+ * the threads of the driver including the thread that reads from the connection, so they must be
+ * thread-safe and should never block.</p>
+ */
+public interface RequestTracer {
+
+    /**
+     * The tracer of a driver that has none, the driver skips tracing entirely with this.
+     */
+    RequestTracer NOOP = new RequestTracer() {};
+
+    /**
+     * Called when a request has been encoded into a frame.
+     * @param unique the unique value of the request.
+     * @param method the method of the request, e.g. get.
+     * @param bytes the size of the frame in bytes.
+     * @param timestamp when the request was encoded.
+     */
+    default void onEncoded(String unique, String method, int bytes, long timestamp) {}
+
+    /**
+     * Called when a request has to wait in the queue before it can be written.
+     * @param unique the unique value of the request.
+     * @param timestamp when the request was queued.
+     */
+    default void onQueued(String unique, long timestamp) {}
+
+    /**
+     * Called when a request has been written to a connection.
+     * @param unique the unique value of the request.
+     * @param bytes the size of the frame in bytes.
+     * @param timestamp when the request was written.
+     */
+    default void onWritten(String unique, int bytes, long timestamp) {}
+
+    /**
+     * Called on the thread that reads from the connection as soon as a reply has been received,
+     * this is also called for late replies of requests that have already failed.
+     * @param unique the unique value of the request the reply belongs to.
+     * @param bytes the size of the reply in bytes.
+     * @param timestamp when the reply was received.
+     */
+    default void onReceived(String unique, int bytes, long timestamp) {}
+
+    /**
+     * Called when the reply of a request has been decoded.
+     * @param unique the unique value of the request.
+     * @param duration the time spent decoding in nanoseconds, the time between receiving
+     *                 and decoding without this is the time waited for a thread to decode on.
+     * @param timestamp when the reply was decoded.
+     */
+    default void onDecoded(String unique, long duration, long timestamp) {}
+
+    /**
+     * Called when the future of a request has been completed, successfully or not.
+     * @param unique the unique value of the request.
+     * @param successful whether the request completed successfully.
+     * @param timestamp when the request was completed.
+     */
+    default void onCompleted(String unique, boolean successful, long timestamp) {}
+
+}
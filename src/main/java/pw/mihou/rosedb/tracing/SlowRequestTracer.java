@@ -0,0 +1,107 @@
+package pw.mihou.rosedb.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs every request that takes longer than the threshold along with the time it spent in each stage,
+ * which shows whether the request waited in the queue, on the server, for the thread that decodes it
+ * or in decoding itself. Requests that are fast enough are forgotten as soon as they complete.
+ */
+public class SlowRequestTracer implements RequestTracer {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowRequestTracer.class);
+
+    private final long threshold;
+    private final Map<String, Trace> traces = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tracer that logs requests which take longer than the threshold.
+     * @param threshold the threshold.
+     * @param unit the unit of the threshold.
+     */
+    public SlowRequestTracer(long threshold, TimeUnit unit){
+        if (threshold < 0)
+            throw new IllegalArgumentException("The threshold cannot be negative.");
+
+        this.threshold = unit.toNanos(threshold);
+    }
+
+    @Override
+    public void onEncoded(String unique, String method, int bytes, long timestamp) {
+        traces.put(unique, new Trace(method, bytes, timestamp));
+    }
+
+    @Override
+    public void onWritten(String unique, int bytes, long timestamp) {
+        Trace trace = traces.get(unique);
+        if (trace != null) {
+            trace.written = timestamp;
+            trace.attempts++;
+        }
+    }
+
+    @Override
+    public void onReceived(String unique, int bytes, long timestamp) {
+        Trace trace = traces.get(unique);
+        if (trace != null) {
+            trace.received = timestamp;
+            trace.replied = bytes;
+        }
+    }
+
+    @Override
+    public void onDecoded(String unique, long duration, long timestamp) {
+        Trace trace = traces.get(unique);
+        if (trace != null) {
+            trace.decoding = duration;
+            trace.decoded = timestamp;
+        }
+    }
+
+    @Override
+    public void onCompleted(String unique, boolean successful, long timestamp) {
+        Trace trace = traces.remove(unique);
+        if (trace == null || timestamp - trace.encoded < threshold)
+            return;
+
+        // Stages that never happened, e.g. the reply of a request that timed out, are logged as zero.
+        long written = trace.written == 0 ? timestamp : trace.written;
+        long received = trace.received == 0 ? written : trace.received;
+        long decoded = trace.decoded == 0 ? received : trace.decoded;
+        log.warn("Request {} ({}) took {} ms: {} ms until written after {} attempt(s), {} ms on the server, {} ms waiting to be decoded, "
+                        + "{} ms decoding and {} ms until completed, {} bytes sent and {} bytes received, successful: {}",
+                unique, trace.method, millis(timestamp - trace.encoded), millis(written - trace.encoded), trace.attempts,
+                millis(received - written), millis(decoded - trace.decoding - received), millis(trace.decoding),
+                millis(timestamp - decoded), trace.sent, trace.replied, successful);
+    }
+
+    private static double millis(long nanos){
+        return Math.max(0, nanos) / 1_000_000.0;
+    }
+
+    private static final class Trace {
+
+        private final String method;
+        private final int sent;
+        private final long encoded;
+        private volatile long written;
+        private volatile int attempts;
+        private volatile long received;
+        private volatile int replied;
+        private volatile long decoding;
+        private volatile long decoded;
+
+        private Trace(String method, int sent, long encoded){
+            this.method = method;
+            this.sent = sent;
+            this.encoded = encoded;
+        }
+
+    }
+
+}
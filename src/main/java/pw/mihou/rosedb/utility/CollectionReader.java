@@ -0,0 +1,97 @@
+package pw.mihou.rosedb.utility;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import pw.mihou.rosedb.payloads.RoseItem;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public class CollectionReader implements Iterator<Map.Entry<String, RoseItem>> {
+
+    private final JsonReader reader;
+    private boolean finished = false;
+
+    /**
+     * Creates a reader that decodes the items of a collection one by one from
+     * an aggregation, the aggregation is never parsed as a whole.
+     * @param aggregation the raw aggregation from the server.
+     * @param collection the name of the collection inside the aggregation.
+     */
+    public CollectionReader(String aggregation, String collection){
+        this.reader = new JsonReader(new StringReader(aggregation));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(collection)) {
+                    reader.beginObject();
+                    return;
+                }
+
+                reader.skipValue();
+            }
+
+            finished = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished)
+            return false;
+
+        try {
+            if (reader.hasNext())
+                return true;
+
+            finished = true;
+            reader.endObject();
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map.Entry<String, RoseItem> next() {
+        String identifier = nextIdentifier();
+        return new AbstractMap.SimpleImmutableEntry<>(identifier, new RoseItem(nextDocument()));
+    }
+
+    /**
+     * Reads the identifier of the next item, this must be followed
+     * by {@link #nextDocument()} to read the item itself.
+     * @return the identifier of the next item.
+     */
+    public String nextIdentifier() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        try {
+            return reader.nextName();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the raw document of the item whose identifier was just read.
+     * @return the raw JSON document.
+     */
+    public String nextDocument() {
+        try {
+            return reader.peek() == JsonToken.STRING ? reader.nextString() : JsonParser.parseReader(reader).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
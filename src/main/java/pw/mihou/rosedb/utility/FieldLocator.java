@@ -0,0 +1,120 @@
+package pw.mihou.rosedb.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Locates the values of multiple (nested) fields of a document in a single pass,
+ * the keys of the document are only compared against the fields that are asked for
+ * and every value that is not on the way to one of those fields is skipped.
+ */
+public class FieldLocator {
+
+    private final Node root = new Node(null);
+    private final List<String> paths = new ArrayList<>();
+
+    /**
+     * Registers a field, nested fields are separated by dots.
+     * @param path the path of the field, e.g. profile.age
+     * @return the slot of the field inside the array returned by {@link #locate(String)}.
+     */
+    public int add(String path){
+        int existing = paths.indexOf(path);
+        if (existing >= 0)
+            return existing;
+
+        Node node = root;
+        for (String key : path.split("\\.")) {
+            node = node.child(key);
+        }
+
+        node.slot = paths.size();
+        paths.add(path);
+        return node.slot;
+    }
+
+    /**
+     * Locates every registered field of the document.
+     * @param document the raw JSON document.
+     * @return the position where the value of each field starts, -1 for missing fields.
+     */
+    public int[] locate(String document){
+        return locate(document, 0);
+    }
+
+    /**
+     * Locates every registered field of the object that starts at the given position.
+     * @param document the raw JSON.
+     * @param from the position of the opening brace of the object.
+     * @return the position where the value of each field starts, -1 for missing fields.
+     */
+    public int[] locate(String document, int from){
+        int[] positions = new int[paths.size()];
+        Arrays.fill(positions, -1);
+        scan(document, from, root, positions);
+        return positions;
+    }
+
+    private static void scan(String json, int from, Node node, int[] positions){
+        int length = json.length();
+        int i = JsonScanner.skipWhitespace(json, from);
+        if (i >= length || json.charAt(i) != '{')
+            return;
+
+        i = JsonScanner.skipWhitespace(json, i + 1);
+        while (i < length && json.charAt(i) == '"') {
+            int end = JsonScanner.skipString(json, i);
+            Node child = null;
+            for (Node candidate : node.children) {
+                if (JsonScanner.regionEquals(json, i + 1, end - 1, candidate.key, false)) {
+                    child = candidate;
+                    break;
+                }
+            }
+
+            i = JsonScanner.skipWhitespace(json, end);
+            if (i >= length || json.charAt(i) != ':')
+                return;
+
+            i = JsonScanner.skipWhitespace(json, i + 1);
+            if (child != null) {
+                if (child.slot >= 0)
+                    positions[child.slot] = i;
+
+                if (!child.children.isEmpty())
+                    scan(json, i, child, positions);
+            }
+
+            i = JsonScanner.skipWhitespace(json, JsonScanner.skipValue(json, i));
+            if (i >= length || json.charAt(i) != ',')
+                return;
+
+            i = JsonScanner.skipWhitespace(json, i + 1);
+        }
+    }
+
+    private static class Node {
+
+        private final String key;
+        private final List<Node> children = new ArrayList<>(2);
+        private int slot = -1;
+
+        private Node(String key){
+            this.key = key;
+        }
+
+        private Node child(String key){
+            for (Node child : children) {
+                if (child.key.equals(key))
+                    return child;
+            }
+
+            Node child = new Node(key);
+            children.add(child);
+            return child;
+        }
+
+    }
+
+}
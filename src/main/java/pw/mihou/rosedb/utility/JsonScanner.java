@@ -0,0 +1,412 @@
+package pw.mihou.rosedb.utility;
+
+import java.util.Arrays;
+
+/**
+ * A scanner that reads single values out of raw JSON in place, every value that
+ * is not asked for is skipped over without being decoded or allocated.
+ */
+public class JsonScanner {
+
+    private static final String LONG_MAX_DIGITS = Long.toString(Long.MAX_VALUE);
+    private static final String LONG_MIN_DIGITS = Long.toString(Long.MIN_VALUE).substring(1);
+
+    /**
+     * Finds the value of a key inside the object that starts at the given position,
+     * only the keys of that object are checked and nested objects are skipped.
+     * @param json the raw JSON.
+     * @param from the position of the opening brace of the object.
+     * @param key the key to look for.
+     * @return the position where the value starts, -1 if the key is missing.
+     */
+    public static int find(String json, int from, String key){
+        int length = json.length();
+        int i = skipWhitespace(json, from);
+        if (i >= length || json.charAt(i) != '{')
+            return -1;
+
+        i = skipWhitespace(json, i + 1);
+        while (i < length && json.charAt(i) == '"') {
+            int end = skipString(json, i);
+            boolean matches = regionEquals(json, i + 1, end - 1, key, false);
+
+            i = skipWhitespace(json, end);
+            if (i >= length || json.charAt(i) != ':')
+                return -1;
+
+            i = skipWhitespace(json, i + 1);
+            if (matches)
+                return i;
+
+            i = skipWhitespace(json, skipValue(json, i));
+            if (i >= length || json.charAt(i) != ',')
+                return -1;
+
+            i = skipWhitespace(json, i + 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the value at a path of keys, each key is looked up inside the value of the previous one.
+     * @param json the raw JSON.
+     * @param path the keys that lead to the value.
+     * @return the position where the value starts, -1 if any of the keys is missing.
+     */
+    public static int find(String json, String... path){
+        int position = 0;
+        for (String key : path) {
+            position = find(json, position, key);
+            if (position < 0)
+                return -1;
+        }
+
+        return position;
+    }
+
+    /**
+     * Lists the members of the object that starts at the given position without decoding
+     * any of them, this allows the members to be read independently of each other afterwards.
+     * @param json the raw JSON.
+     * @param from the position of the opening brace of the object.
+     * @return the position where each key starts followed by the position where its value starts.
+     */
+    public static int[] members(String json, int from){
+        int[] members = new int[16];
+        int count = 0;
+        int length = json.length();
+        int i = skipWhitespace(json, from);
+        if (i >= length || json.charAt(i) != '{')
+            return new int[0];
+
+        i = skipWhitespace(json, i + 1);
+        while (i < length && json.charAt(i) == '"') {
+            int key = i;
+            i = skipWhitespace(json, skipString(json, i));
+            if (i >= length || json.charAt(i) != ':')
+                break;
+
+            i = skipWhitespace(json, i + 1);
+            if (count + 2 > members.length)
+                members = Arrays.copyOf(members, members.length * 2);
+
+            members[count++] = key;
+            members[count++] = i;
+
+            i = skipWhitespace(json, skipValue(json, i));
+            if (i >= length || json.charAt(i) != ',')
+                break;
+
+            i = skipWhitespace(json, i + 1);
+        }
+
+        return Arrays.copyOf(members, count);
+    }
+
+    /**
+     * Lists the elements of the array that starts at the given position without decoding any of them.
+     * @param json the raw JSON.
+     * @param from the position of the opening bracket of the array.
+     * @return the position where each element starts, null if the value is not an array.
+     */
+    public static int[] elements(String json, int from){
+        int length = json.length();
+        int i = skipWhitespace(json, from);
+        if (i >= length || json.charAt(i) != '[')
+            return null;
+
+        int[] elements = new int[16];
+        int count = 0;
+        i = skipWhitespace(json, i + 1);
+        while (i < length && json.charAt(i) != ']') {
+            if (count == elements.length)
+                elements = Arrays.copyOf(elements, elements.length * 2);
+
+            elements[count++] = i;
+            i = skipWhitespace(json, skipValue(json, i));
+            if (i >= length || json.charAt(i) != ',')
+                break;
+
+            i = skipWhitespace(json, i + 1);
+        }
+
+        return Arrays.copyOf(elements, count);
+    }
+
+    /**
+     * Skips over the value that starts at the given position.
+     * @param json the raw JSON.
+     * @param from the position where the value starts.
+     * @return the position right after the value.
+     */
+    public static int skipValue(String json, int from){
+        int length = json.length();
+        if (from >= length)
+            return length;
+
+        char c = json.charAt(from);
+        if (c == '"')
+            return skipString(json, from);
+
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            int i = from;
+            while (i < length) {
+                c = json.charAt(i);
+                if (c == '"') {
+                    i = skipString(json, i);
+                    continue;
+                }
+
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return i + 1;
+                }
+
+                i++;
+            }
+
+            return length;
+        }
+
+        int i = from;
+        while (i < length) {
+            c = json.charAt(i);
+            if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c))
+                break;
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * Checks whether the value at the position is null.
+     * @param json the raw JSON.
+     * @param at the position where the value starts.
+     * @return whether the value is null.
+     */
+    public static boolean isNull(String json, int at){
+        return json.startsWith("null", at);
+    }
+
+    /**
+     * Checks whether the value at the position is a string.
+     * @param json the raw JSON.
+     * @param at the position where the value starts.
+     * @return whether the value is a string.
+     */
+    public static boolean isString(String json, int at){
+        return at < json.length() && json.charAt(at) == '"';
+    }
+
+    /**
+     * Compares the string at the position with the given value without decoding it
+     * unless the string contains escape sequences.
+     * @param json the raw JSON.
+     * @param at the position where the string starts.
+     * @param value the value to compare with.
+     * @param ignoreCase whether to ignore the casing.
+     * @return whether the string is equal to the value.
+     */
+    public static boolean stringEquals(String json, int at, String value, boolean ignoreCase){
+        return isString(json, at) && regionEquals(json, at + 1, skipString(json, at) - 1, value, ignoreCase);
+    }
+
+    /**
+     * Decodes the string at the position.
+     * @param json the raw JSON.
+     * @param at the position where the string starts.
+     * @return the decoded string.
+     */
+    public static String readString(String json, int at){
+        int end = skipString(json, at);
+        if (!hasEscape(json, at + 1, end - 1))
+            return json.substring(at + 1, end - 1);
+
+        StringBuilder builder = new StringBuilder(end - at);
+        for (int i = at + 1; i < end - 1; i++) {
+            char c = json.charAt(i);
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            c = json.charAt(++i);
+            switch (c) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Checks whether the number at the position, or the number inside the string at the
+     * position, has no fraction or exponent and fits in a long, which means it can be read
+     * exactly with {@link #readLong(String, int)}.
+     * @param json the raw JSON.
+     * @param at the position where the number starts.
+     * @return whether the number is integral.
+     */
+    public static boolean isIntegral(String json, int at){
+        int start = isString(json, at) ? at + 1 : at;
+        int end = isString(json, at) ? skipString(json, at) - 1 : skipValue(json, at);
+        boolean negative = start < end && json.charAt(start) == '-';
+        int digits = negative ? start + 1 : start;
+        if (digits >= end)
+            return false;
+
+        for (int i = digits; i < end; i++) {
+            char c = json.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+
+        // Skip leading zeros so that only the significant digits are compared with the limit.
+        while (digits < end - 1 && json.charAt(digits) == '0')
+            digits++;
+
+        String limit = negative ? LONG_MIN_DIGITS : LONG_MAX_DIGITS;
+        int length = end - digits;
+        if (length != limit.length())
+            return length < limit.length();
+
+        for (int i = 0; i < length; i++) {
+            int difference = json.charAt(digits + i) - limit.charAt(i);
+            if (difference != 0)
+                return difference < 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the integral number at the position without allocating.
+     * @param json the raw JSON.
+     * @param at the position where the number starts.
+     * @return the number, only valid if {@link #isIntegral(String, int)} is true.
+     */
+    public static long readLong(String json, int at){
+        int start = isString(json, at) ? at + 1 : at;
+        int end = isString(json, at) ? skipString(json, at) - 1 : skipValue(json, at);
+        boolean negative = json.charAt(start) == '-';
+
+        // Accumulated as a negative number since Long.MIN_VALUE has no positive counterpart.
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            value = value * 10 - (json.charAt(i) - '0');
+        }
+
+        return negative ? value : -value;
+    }
+
+    /**
+     * Reads the number at the position.
+     * @param json the raw JSON.
+     * @param at the position where the number starts.
+     * @return the number.
+     * @throws NumberFormatException if the value is not a number.
+     */
+    public static double readDouble(String json, int at){
+        if (isIntegral(json, at))
+            return readLong(json, at);
+
+        int start = isString(json, at) ? at + 1 : at;
+        int end = isString(json, at) ? skipString(json, at) - 1 : skipValue(json, at);
+        return Double.parseDouble(json.substring(start, end));
+    }
+
+    /**
+     * Checks whether the value at the position is a number, or a string holding a number.
+     * @param json the raw JSON.
+     * @param at the position where the value starts.
+     * @return whether the value can be read as a number.
+     */
+    public static boolean isNumber(String json, int at){
+        if (at >= json.length())
+            return false;
+
+        char c = isString(json, at) ? (at + 1 < json.length() ? json.charAt(at + 1) : '"') : json.charAt(at);
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Checks whether the value at the position is the given boolean.
+     * @param json the raw JSON.
+     * @param at the position where the value starts.
+     * @param value the boolean to compare with.
+     * @return whether the value is the boolean.
+     */
+    public static boolean booleanEquals(String json, int at, boolean value){
+        String literal = value ? "true" : "false";
+        return json.startsWith(literal, at) && skipValue(json, at) == at + literal.length();
+    }
+
+    static boolean regionEquals(String json, int start, int end, String value, boolean ignoreCase){
+        if (!hasEscape(json, start, end))
+            return end - start == value.length() && json.regionMatches(ignoreCase, start, value, 0, value.length());
+
+        String decoded = readString(json, start - 1);
+        return ignoreCase ? decoded.equalsIgnoreCase(value) : decoded.equals(value);
+    }
+
+    private static boolean hasEscape(String json, int start, int end){
+        for (int i = start; i < end; i++) {
+            if (json.charAt(i) == '\\')
+                return true;
+        }
+
+        return false;
+    }
+
+    static int skipString(String json, int from){
+        int length = json.length();
+        int i = from + 1;
+        while (i < length) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+
+        return length;
+    }
+
+    static int skipWhitespace(String json, int from){
+        int length = json.length();
+        int i = from;
+        while (i < length && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+
+}
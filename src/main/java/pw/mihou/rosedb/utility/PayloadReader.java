@@ -0,0 +1,65 @@
+package pw.mihou.rosedb.utility;
+
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads payloads straight out of the frames sent by the server, only the kode and
+ * the response are looked at and the response is handed over without being parsed.
+ */
+public class PayloadReader {
+
+    private static final FieldLocator locator = new FieldLocator();
+    private static final int KODE = locator.add("kode");
+    private static final int RESPONSE = locator.add("response");
+
+    /**
+     * Reads the payload of the object that starts at the given position.
+     * @param json the raw frame.
+     * @param from the position of the opening brace of the object.
+     * @return the payload.
+     */
+    public static RosePayload read(String json, int from){
+        int[] positions = locator.locate(json, from);
+        int kode = positions[KODE];
+        int response = positions[RESPONSE];
+        return new RosePayload(kode >= 0 && JsonScanner.isIntegral(json, kode) ? (int) JsonScanner.readLong(json, kode) : -1,
+                response(json, response));
+    }
+
+    /**
+     * Reads the payloads of a batched frame, the response of a batched
+     * frame is an array holding the kode and response of every request.
+     * @param json the raw frame.
+     * @return the payloads in the same order as the requests, null if the frame holds no array.
+     */
+    public static List<RosePayload> readAll(String json){
+        int response = JsonScanner.find(json, 0, "response");
+        int[] elements = response < 0 ? null : JsonScanner.elements(json, response);
+        if (elements == null)
+            return null;
+
+        List<RosePayload> payloads = new ArrayList<>(elements.length);
+        for (int element : elements) {
+            payloads.add(read(json, element));
+        }
+
+        return payloads;
+    }
+
+    /**
+     * Strings are decoded while any other value is handed over as it was written.
+     */
+    private static String response(String json, int at){
+        if (at < 0 || JsonScanner.isNull(json, at))
+            return null;
+
+        if (JsonScanner.isString(json, at))
+            return JsonScanner.readString(json, at);
+
+        return json.substring(at, JsonScanner.skipValue(json, at));
+    }
+
+}
@@ -8,4 +8,31 @@ public class RoseUtility {
     public static final Gson gson = new GsonBuilder()
             .disableHtmlEscaping().serializeNulls().create();
 
+    /**
+     * Counts the bytes of the text once encoded as UTF-8 without encoding it.
+     * @param text the text.
+     * @return the amount of bytes.
+     */
+    public static int utf8Length(String text){
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80)
+                continue;
+
+            if (c < 0x800) {
+                bytes++;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                // A surrogate pair is four bytes for its two characters, a lone surrogate is replaced by a single byte.
+                bytes += 2;
+                i++;
+            }
+        }
+
+        return bytes;
+    }
+
 }
@@ -0,0 +1,29 @@
+package pw.mihou.rosedb.io;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors that run every task on a virtual thread of its own, this is
+ * the version of the class that is used on Java 21 and above.
+ */
+public class VirtualThreads {
+
+    /**
+     * Checks whether virtual threads are available on this runtime.
+     * @return whether virtual threads are available.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every task.
+     * @param name the name of the virtual threads.
+     * @return the executor.
+     */
+    public static ExecutorService newExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name).factory());
+    }
+
+}
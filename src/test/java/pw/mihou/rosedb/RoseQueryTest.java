@@ -0,0 +1,68 @@
+package pw.mihou.rosedb;
+
+import org.junit.jupiter.api.Test;
+import pw.mihou.rosedb.filters.DocumentFilter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoseQueryTest {
+
+    private static final String LARGE = "{\"id\":1234567890123456789}";
+
+    private static boolean test(RoseQuery query, String document){
+        DocumentFilter filter = query.compile();
+        return filter.test(document);
+    }
+
+    @Test
+    void comparesNineteenDigitIdsExactly(){
+        assertTrue(test(RoseQuery.where("id").equalTo(1234567890123456789L), LARGE));
+        assertFalse(test(RoseQuery.where("id").equalTo(1234567890123456780L), LARGE));
+        assertTrue(test(RoseQuery.where("id").greaterThan(1234567890123456788L), LARGE));
+        assertFalse(test(RoseQuery.where("id").greaterThan(1234567890123456789L), LARGE));
+        assertTrue(test(RoseQuery.where("id").lessThan(1234567890123456790L), LARGE));
+    }
+
+    @Test
+    void matchesNineteenDigitIdsInSets(){
+        assertTrue(test(RoseQuery.where("id").in(List.of(1L, 1234567890123456789L)), LARGE));
+        assertFalse(test(RoseQuery.where("id").in(List.of(1L, 1234567890123456780L)), LARGE));
+    }
+
+    @Test
+    void comparesTheBoundariesOfLong(){
+        assertTrue(test(RoseQuery.where("id").equalTo(Long.MAX_VALUE), "{\"id\":9223372036854775807}"));
+        assertTrue(test(RoseQuery.where("id").equalTo(Long.MIN_VALUE), "{\"id\":-9223372036854775808}"));
+        assertTrue(test(RoseQuery.where("id").greaterThan(Long.MAX_VALUE), "{\"id\":10000000000000000000}"));
+        assertTrue(test(RoseQuery.where("id").lessThan(Long.MIN_VALUE), "{\"id\":-10000000000000000000}"));
+    }
+
+    @Test
+    void comparesFractionsWithLargeLongsExactly(){
+        // 2^53 + 1 cannot be represented as a double, widening it would make it equal to 2^53.
+        long large = (1L << 53) + 1;
+        assertFalse(test(RoseQuery.where("id").equalTo(large), "{\"id\":9007199254740992.0}"));
+        assertTrue(test(RoseQuery.where("id").lessThan(large), "{\"id\":9007199254740992.0}"));
+        assertFalse(test(RoseQuery.where("id").equalTo(1L << 53), "{\"id\":9007199254740993}"));
+    }
+
+    @Test
+    void comparesFractionsWithIntegers(){
+        assertTrue(test(RoseQuery.where("id").greaterThan(3), "{\"id\":3.7}"));
+        assertTrue(test(RoseQuery.where("id").lessThan(4), "{\"id\":3.7}"));
+        assertFalse(test(RoseQuery.where("id").equalTo(3), "{\"id\":3.7}"));
+        assertTrue(test(RoseQuery.where("id").equalTo(3), "{\"id\":3.0}"));
+        assertTrue(test(RoseQuery.where("id").lessThan(3.5), "{\"id\":3}"));
+        assertTrue(test(RoseQuery.where("id").lessThan(-2), "{\"id\":-2.5}"));
+    }
+
+    @Test
+    void rejectsValuesWithoutDigits(){
+        assertFalse(test(RoseQuery.where("id").equalTo(0), "{\"id\":\"-\"}"));
+        assertFalse(test(RoseQuery.where("id").in(List.of(0L)), "{\"id\":\"-\"}"));
+    }
+
+}
@@ -0,0 +1,97 @@
+package pw.mihou.rosedb.entities;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import pw.mihou.rosedb.enums.NumberFilter;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndexTest {
+
+    private static final JSONObject DOCUMENTS = new JSONObject()
+            .put("a", "{\"value\":1234567890123456789}")
+            .put("b", "{\"value\":1234567890123456780}")
+            .put("c", "{\"value\":3.7}")
+            .put("d", "{\"value\":3}")
+            .put("e", "{\"value\":-3.7}")
+            .put("f", "{\"value\":-3}")
+            .put("g", "{\"value\":3.0}")
+            .put("h", "{\"value\":9223372036854775807}")
+            .put("i", "{\"value\":-9223372036854775808}")
+            .put("j", "{\"value\":1e19}")
+            .put("k", "{\"value\":0}")
+            .put("l", "{\"value\":-0.0}")
+            .put("m", "{\"value\":0.5}")
+            .put("n", "{\"value\":\"12\"}")
+            .put("o", "{\"value\":\"-\"}")
+            .put("p", "{\"value\":true}")
+            .put("q", "{\"other\":3}");
+
+    private static final long[] LONGS = {
+            1234567890123456789L, 1234567890123456780L, 1234567890123456788L, 3, -3, 0, 12, 4, -4,
+            Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1
+    };
+
+    private static final double[] DOUBLES = {
+            1.2345678901234568E18, 3.7, -3.7, 3, 3.5, 0, -0.0, 0.5, 12, 1e19, -1e19, 9.223372036854775807E18
+    };
+
+    private static final AggregatedCollection COLLECTION = new AggregatedCollection("collection", DOCUMENTS);
+
+    private static Set<String> scan(long value, NumberFilter filter){
+        return new AggregatedCollection("collection", DOCUMENTS, "value", value, filter).getData().keySet();
+    }
+
+    private static Set<String> scan(double value, NumberFilter filter){
+        return new AggregatedCollection("collection", DOCUMENTS, "value", value, filter).getData().keySet();
+    }
+
+    private static <T> Set<String> scan(T value){
+        return new AggregatedCollection("collection", DOCUMENTS, "value", value).getData().keySet();
+    }
+
+    @Test
+    void sortedIndexMatchesTheScanForLongs(){
+        SortedIndex index = COLLECTION.getSortedIndex("value");
+        for (long value : LONGS) {
+            for (NumberFilter filter : NumberFilter.values()) {
+                assertEquals(scan(value, filter), index.filter(value, filter).getData().keySet(), filter + " " + value);
+            }
+        }
+    }
+
+    @Test
+    void sortedIndexMatchesTheScanForDoubles(){
+        SortedIndex index = COLLECTION.getSortedIndex("value");
+        for (double value : DOUBLES) {
+            for (NumberFilter filter : NumberFilter.values()) {
+                assertEquals(scan(value, filter), index.filter(value, filter).getData().keySet(), filter + " " + value);
+            }
+        }
+    }
+
+    @Test
+    void hashIndexMatchesTheScan(){
+        HashIndex index = COLLECTION.getHashIndex("value");
+        for (long value : LONGS) {
+            assertEquals(scan(value), index.filter(value).getData().keySet(), Long.toString(value));
+        }
+
+        for (double value : DOUBLES) {
+            assertEquals(scan(value), index.filter(value).getData().keySet(), Double.toString(value));
+        }
+
+        assertEquals(scan("12"), index.filter("12").getData().keySet());
+        assertEquals(scan(true), index.filter(true).getData().keySet());
+    }
+
+    @Test
+    void indexesCompareNineteenDigitIdsExactly(){
+        assertEquals(Set.of("a"), COLLECTION.getSortedIndex("value").filter(1234567890123456789L, NumberFilter.EQUALS).getData().keySet());
+        assertEquals(Set.of("a"), COLLECTION.getHashIndex("value").filter(1234567890123456789L).getData().keySet());
+        assertEquals(Set.of("c", "d", "g"), COLLECTION.getSortedIndex("value").filter(3L, NumberFilter.EQUALS).getData().keySet());
+    }
+
+}
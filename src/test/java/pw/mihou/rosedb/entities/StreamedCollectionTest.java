@@ -0,0 +1,120 @@
+package pw.mihou.rosedb.entities;
+
+import org.junit.jupiter.api.Test;
+import pw.mihou.rosedb.payloads.RoseItem;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamedCollectionTest {
+
+    private static final String AGGREGATION = "{\"users\":{\"a\":{\"n\":1},\"b\":{\"n\":2},\"c\":{\"n\":3}}}";
+
+    private static StreamedCollection collection(AtomicInteger fetches){
+        return new StreamedCollection("users", () -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture(new RosePayload(1, AGGREGATION));
+        });
+    }
+
+    private static class Recorder implements Flow.Subscriber<Map.Entry<String, RoseItem>> {
+
+        final List<String> signals = new ArrayList<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Map.Entry<String, RoseItem> item) {
+            signals.add(item.getKey());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signals.add("error");
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+    }
+
+    @Test
+    void emitsTheRequestedItemsAndCompletes(){
+        Recorder recorder = new Recorder();
+        collection(new AtomicInteger()).subscribe(recorder);
+
+        recorder.subscription.request(2);
+        assertEquals(List.of("a", "b"), recorder.signals);
+
+        recorder.subscription.request(1);
+        assertEquals(List.of("a", "b", "c", "complete"), recorder.signals);
+    }
+
+    @Test
+    void neverFetchesForSubscribersThatCancelRightAway(){
+        AtomicInteger fetches = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+        };
+
+        collection(fetches).subscribe(recorder);
+        assertEquals(0, fetches.get());
+        assertTrue(recorder.signals.isEmpty());
+    }
+
+    @Test
+    void signalsErrorsAfterTheItemThatIsBeingEmitted() throws InterruptedException {
+        List<Throwable> errors = new ArrayList<>();
+        boolean[] overlapped = {false};
+        Recorder recorder = new Recorder() {
+            private boolean emitting = false;
+
+            @Override
+            public void onNext(Map.Entry<String, RoseItem> item) {
+                emitting = true;
+                super.onNext(item);
+                Thread other = new Thread(() -> subscription.request(0));
+                other.start();
+                try {
+                    other.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                emitting = false;
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                overlapped[0] |= emitting;
+                errors.add(throwable);
+                super.onError(throwable);
+            }
+        };
+
+        collection(new AtomicInteger()).subscribe(recorder);
+        recorder.subscription.request(3);
+
+        assertFalse(overlapped[0]);
+        assertEquals(List.of("a", "error"), recorder.signals);
+        assertInstanceOf(IllegalArgumentException.class, errors.get(0));
+    }
+
+}
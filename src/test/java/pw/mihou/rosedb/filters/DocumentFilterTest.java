@@ -0,0 +1,40 @@
+package pw.mihou.rosedb.filters;
+
+import org.junit.jupiter.api.Test;
+import pw.mihou.rosedb.enums.NumberFilter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentFilterTest {
+
+    @Test
+    void comparesNineteenDigitNumbersExactly(){
+        String document = "{\"id\":1234567890123456789}";
+        assertTrue(DocumentFilter.of("id", 1234567890123456789L, NumberFilter.EQUALS).test(document));
+        assertFalse(DocumentFilter.of("id", 1234567890123456780L, NumberFilter.EQUALS).test(document));
+        assertTrue(DocumentFilter.of("id", 1234567890123456788L, NumberFilter.GREATER_THAN).test(document));
+        assertTrue(DocumentFilter.of("id", 1234567890123456790L, NumberFilter.LESS_THAN).test(document));
+    }
+
+    @Test
+    void comparesTheBoundariesOfLong(){
+        assertTrue(DocumentFilter.of("id", Long.MAX_VALUE, NumberFilter.EQUALS).test("{\"id\":9223372036854775807}"));
+        assertTrue(DocumentFilter.of("id", Long.MIN_VALUE, NumberFilter.EQUALS).test("{\"id\":-9223372036854775808}"));
+        assertFalse(DocumentFilter.of("id", Long.MAX_VALUE - 1, NumberFilter.EQUALS).test("{\"id\":9223372036854775807}"));
+    }
+
+    @Test
+    void rejectsValuesWithoutDigits(){
+        assertFalse(DocumentFilter.of("id", 0L, NumberFilter.EQUALS).test("{\"id\":\"-\"}"));
+        assertFalse(DocumentFilter.of("id", 0L, NumberFilter.EQUALS).test("{\"id\":\"\"}"));
+    }
+
+    @Test
+    void truncatesFractionsLikeGetLong(){
+        assertTrue(DocumentFilter.of("id", 3L, NumberFilter.EQUALS).test("{\"id\":3.7}"));
+        assertTrue(DocumentFilter.of("id", -3L, NumberFilter.EQUALS).test("{\"id\":-3.7}"));
+        assertTrue(DocumentFilter.of("id", 1000L, NumberFilter.EQUALS).test("{\"id\":1e3}"));
+    }
+
+}
@@ -0,0 +1,64 @@
+package pw.mihou.rosedb.payloads;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class RoseItemTest {
+
+    private static final String RAW = "{\"name\":\"Rose\",\"tags\":[\"a\",\"b\"],\"profile\":{\"age\":5}}";
+
+    static class Item {
+        String name;
+        List<String> tags;
+    }
+
+    @Test
+    void returnsACopyOfTheJSONObjectOnEveryCall(){
+        RoseItem item = new RoseItem(RAW);
+        item.asJSONObject().put("name", "Changed");
+        item.asJSONObject().getJSONArray("tags").put("c");
+        item.asJSONObject().getJSONObject("profile").put("age", 6);
+
+        assertEquals("Rose", item.asJSONObject().getString("name"));
+        assertEquals(2, item.asJSONObject().getJSONArray("tags").length());
+        assertEquals(5, item.asJSONObject().getJSONObject("profile").getInt("age"));
+    }
+
+    @Test
+    void returnsANewObjectOnEveryCall(){
+        RoseItem item = new RoseItem(RAW);
+        Item first = item.as(Item.class);
+        first.tags.add("c");
+
+        Item second = item.as(Item.class);
+        assertNotSame(first, second);
+        assertEquals(List.of("a", "b"), second.tags);
+    }
+
+    @Test
+    void keepsTheRawResponseWhenReleased(){
+        RoseItem item = new RoseItem(RAW);
+        item.asJSONObject();
+        item.as(Item.class);
+        item.release();
+
+        assertEquals(RAW, item.getRaw());
+        assertEquals("Rose", item.asJSONObject().getString("name"));
+        assertEquals("Rose", item.as(Item.class).name);
+    }
+
+    @Test
+    void payloadsShareTheSameRules(){
+        RosePayload payload = new RosePayload(1, RAW);
+        payload.asJSONObject().put("name", "Changed");
+        payload.release();
+
+        assertEquals("Rose", payload.asJSONObject().getString("name"));
+        assertEquals(RAW, payload.getRaw());
+    }
+
+}
@@ -0,0 +1,88 @@
+package pw.mihou.rosedb.utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonScannerTest {
+
+    private static int value(String document){
+        return JsonScanner.find(document, 0, "id");
+    }
+
+    private static void assertIntegral(String number, long expected){
+        for (String document : new String[]{"{\"id\":" + number + "}", "{\"id\":\"" + number + "\"}"}) {
+            int at = value(document);
+            assertTrue(JsonScanner.isIntegral(document, at), document);
+            assertEquals(expected, JsonScanner.readLong(document, at), document);
+        }
+    }
+
+    private static void assertNotIntegral(String number){
+        for (String document : new String[]{"{\"id\":" + number + "}", "{\"id\":\"" + number + "\"}"}) {
+            assertFalse(JsonScanner.isIntegral(document, value(document)), document);
+        }
+    }
+
+    @Test
+    void readsTheBoundariesOfLong(){
+        assertIntegral("9223372036854775807", Long.MAX_VALUE);
+        assertIntegral("-9223372036854775808", Long.MIN_VALUE);
+        assertIntegral("9223372036854775806", Long.MAX_VALUE - 1);
+        assertIntegral("-9223372036854775807", Long.MIN_VALUE + 1);
+    }
+
+    @Test
+    void readsNineteenDigitNumbersExactly(){
+        assertIntegral("1234567890123456789", 1234567890123456789L);
+        assertIntegral("1234567890123456780", 1234567890123456780L);
+        assertIntegral("-1000000000000000000", -1000000000000000000L);
+        assertIntegral("000000000000000000001", 1);
+    }
+
+    @Test
+    void readsSmallNumbers(){
+        assertIntegral("0", 0);
+        assertIntegral("-0", 0);
+        assertIntegral("7", 7);
+        assertIntegral("-42", -42);
+    }
+
+    @Test
+    void rejectsNumbersOutsideOfLong(){
+        assertNotIntegral("9223372036854775808");
+        assertNotIntegral("-9223372036854775809");
+        assertNotIntegral("10000000000000000000");
+        assertNotIntegral("99999999999999999999999");
+    }
+
+    @Test
+    void rejectsNumbersWithoutDigits(){
+        assertNotIntegral("-");
+        assertNotIntegral("\"\"");
+        assertFalse(JsonScanner.isIntegral("{\"id\":\"\"}", value("{\"id\":\"\"}")));
+        assertThrows(NumberFormatException.class, () -> JsonScanner.readDouble("{\"id\":-}", value("{\"id\":-}")));
+    }
+
+    @Test
+    void readsFractionsAndExponentsAsDoubles(){
+        assertNotIntegral("3.7");
+        assertNotIntegral("1e3");
+        assertNotIntegral("-2.5E-3");
+
+        String document = "{\"id\":3.7}";
+        assertEquals(3.7, JsonScanner.readDouble(document, value(document)));
+        document = "{\"id\":1e3}";
+        assertEquals(1000.0, JsonScanner.readDouble(document, value(document)));
+    }
+
+    @Test
+    void readsNumbersOutsideOfLongAsDoubles(){
+        String document = "{\"id\":9223372036854775808}";
+        assertEquals(9.223372036854775808E18, JsonScanner.readDouble(document, value(document)));
+    }
+
+}
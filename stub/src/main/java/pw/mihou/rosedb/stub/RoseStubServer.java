@@ -0,0 +1,431 @@
+package pw.mihou.rosedb.stub;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketAdapter;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.DefaultWebSocketServerFactory;
+import org.java_websocket.server.WebSocketServer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An in-process stand-in for RoseDB which speaks the same protocol as the driver and keeps its
+ * databases in memory, it can also delay, drop and disconnect replies to measure how the driver
+ * behaves under latency and failures. Every fault is rolled from a seeded random, so the same
+ * seed and the same order of requests always result in the same faults.
+ *
+ * <p>The random is shared by every connection and rolled in the order the requests are decoded,
+ * which is only repeatable for a single connection: requests of multiple connections are decoded
+ * on multiple threads, so the order they reach the random, and with it which request gets which
+ * fault, changes from run to run.</p>
+ *
+ * <p>The fault settings can be changed while the server runs and apply to the requests that arrive
+ * afterwards. Faulted requests are still applied to the store, only their replies are lost.</p>
+ */
+public class RoseStubServer extends WebSocketServer {
+
+    private static final long DEFAULT_SEED = 0x526F7365L;
+
+    private final StubStore store = new StubStore();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "RoseDB - Stub - Replies");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong replies = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+
+    private volatile String authentication;
+    private volatile long latency = 0;
+    private volatile long jitter = 0;
+    private volatile double dropRate = 0;
+    private volatile double disconnectRate = 0;
+    private volatile boolean batching = true;
+    private volatile Set<String> ignoredMethods = Collections.emptySet();
+    private volatile Exception error;
+    private SplittableRandom random = new SplittableRandom(DEFAULT_SEED);
+
+    /**
+     * Creates a server that listens on a free port of the loopback address,
+     * the port is known once the server has started.
+     */
+    public RoseStubServer(){
+        this(0);
+    }
+
+    /**
+     * Creates a server that listens on the given port of the loopback address.
+     * @param port the port, zero for any free port.
+     */
+    public RoseStubServer(int port){
+        super(new InetSocketAddress("127.0.0.1", port));
+        setReuseAddr(true);
+        setTcpNoDelay(true);
+
+        // Replies are sent from the decoders and the scheduler, they are written right away instead of through the selector.
+        WriteThroughListener listener = new WriteThroughListener(this, scheduler);
+        setWebSocketFactory(new DefaultWebSocketServerFactory() {
+            @Override
+            public WebSocketImpl createWebSocket(WebSocketAdapter adapter, Draft draft) {
+                return new WebSocketImpl(listener, draft);
+            }
+
+            @Override
+            public WebSocketImpl createWebSocket(WebSocketAdapter adapter, List<Draft> drafts) {
+                return new WebSocketImpl(listener, drafts);
+            }
+        });
+    }
+
+    /**
+     * Starts the server and waits until it accepts connections.
+     * @return the port the server listens on.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     * @throws IllegalStateException if the server failed to start.
+     */
+    public int startAndWait() throws InterruptedException {
+        start();
+        started.await();
+        if (error != null)
+            throw new IllegalStateException("The stub server failed to start: " + error.getMessage(), error);
+
+        return getPort();
+    }
+
+    /**
+     * Stops the server, closing every connection and discarding the replies that are still delayed.
+     * @throws InterruptedException if the thread was interrupted while waiting for the server to stop.
+     */
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdownNow();
+        stop(1000);
+    }
+
+    /**
+     * Sets the authorization the clients must connect with, connections with a different
+     * authorization are closed right after they open.
+     * @param authentication the authorization, null to accept every connection.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setAuthentication(String authentication){
+        this.authentication = authentication;
+        return this;
+    }
+
+    /**
+     * Sets how long every reply is held back before it is sent.
+     * @param latency the latency, zero to reply right away.
+     * @param unit the unit of the latency.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setLatency(long latency, TimeUnit unit){
+        if (latency < 0)
+            throw new IllegalArgumentException("The latency cannot be negative.");
+
+        this.latency = unit.toNanos(latency);
+        return this;
+    }
+
+    /**
+     * Sets the most a reply is held back on top of the latency, the extra delay of every reply is
+     * picked uniformly at random which also means replies may be sent out of order.
+     * @param jitter the jitter, zero to hold back every reply for exactly the latency.
+     * @param unit the unit of the jitter.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setJitter(long jitter, TimeUnit unit){
+        if (jitter < 0)
+            throw new IllegalArgumentException("The jitter cannot be negative.");
+
+        this.jitter = unit.toNanos(jitter);
+        return this;
+    }
+
+    /**
+     * Sets the chance that the reply of a request is never sent, which leaves the driver
+     * waiting until the deadline of the request.
+     * @param dropRate the chance between zero and one.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setDropRate(double dropRate){
+        if (dropRate < 0 || dropRate > 1)
+            throw new IllegalArgumentException("The drop rate must be between zero and one.");
+
+        this.dropRate = dropRate;
+        return this;
+    }
+
+    /**
+     * Sets the chance that the connection of a request is cut instead of replying,
+     * the connection is closed abruptly without a closing handshake.
+     * @param disconnectRate the chance between zero and one.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setDisconnectRate(double disconnectRate){
+        if (disconnectRate < 0 || disconnectRate > 1)
+            throw new IllegalArgumentException("The disconnect rate must be between zero and one.");
+
+        this.disconnectRate = disconnectRate;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random that decides the faults and jitter of every request, the faults
+     * are only repeatable when the requests arrive over a single connection.
+     * @param seed the seed.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public synchronized RoseStubServer setSeed(long seed){
+        this.random = new SplittableRandom(seed);
+        return this;
+    }
+
+    /**
+     * Sets whether batched requests are answered, without them the server replies
+     * to batches the same way as a RoseDB that does not support them.
+     * @param batching whether batched requests are supported.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setBatching(boolean batching){
+        this.batching = batching;
+        return this;
+    }
+
+    /**
+     * Sets the methods whose requests are neither applied nor answered, which is how a server
+     * behaves that silently drops requests it does not understand. Unlike dropped replies,
+     * these requests never reach the store.
+     * @param methods the methods to ignore, none to handle every request.
+     * @return RoseStubServer for chain-calling methods.
+     */
+    public RoseStubServer setIgnoredMethods(String... methods){
+        this.ignoredMethods = Set.of(methods);
+        return this;
+    }
+
+    /**
+     * Cuts every connection abruptly without a closing handshake.
+     */
+    public void disconnectAll(){
+        getConnections().forEach(connection -> {
+            disconnects.incrementAndGet();
+            connection.closeConnection(CloseFrame.ABNORMAL_CLOSE, "The stub server has cut the connection.");
+        });
+    }
+
+    public StubStore getStore(){
+        return store;
+    }
+
+    public long getRequests(){
+        return requests.get();
+    }
+
+    public long getReplies(){
+        return replies.get();
+    }
+
+    public long getDropped(){
+        return dropped.get();
+    }
+
+    public long getDisconnects(){
+        return disconnects.get();
+    }
+
+    @Override
+    public void onStart(){
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket connection, ClientHandshake handshake){
+        String authentication = this.authentication;
+        if (authentication != null && !authentication.equals(handshake.getFieldValue("Authorization")))
+            connection.close(CloseFrame.POLICY_VALIDATION, "The authorization is invalid.");
+    }
+
+    @Override
+    public void onMessage(WebSocket connection, String message){
+        requests.incrementAndGet();
+        JSONObject request;
+        try {
+            request = new JSONObject(message);
+        } catch (JSONException e) {
+            return;
+        }
+
+        if (ignoredMethods.contains(request.optString("method")))
+            return;
+
+        String reply = handle(request).put("replyTo", request.optString("unique", null)).toString();
+
+        double fault;
+        long delay;
+        synchronized (this) {
+            fault = random.nextDouble();
+            delay = latency + (jitter > 0 ? random.nextLong(jitter + 1) : 0);
+        }
+
+        if (fault < disconnectRate) {
+            disconnects.incrementAndGet();
+            connection.closeConnection(CloseFrame.ABNORMAL_CLOSE, "The stub server has cut the connection.");
+        } else if (fault < disconnectRate + dropRate) {
+            dropped.incrementAndGet();
+        } else if (delay == 0) {
+            reply(connection, reply);
+        } else {
+            scheduler.schedule(() -> reply(connection, reply), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onClose(WebSocket connection, int code, String reason, boolean remote){
+    }
+
+    @Override
+    public void onError(WebSocket connection, Exception exception){
+        // Errors without a connection are those of the server itself, e.g. when the port is taken.
+        if (connection == null) {
+            error = exception;
+            started.countDown();
+        }
+    }
+
+    private void reply(WebSocket connection, String reply){
+        if (connection.isOpen()) {
+            connection.send(reply);
+            replies.incrementAndGet();
+        }
+    }
+
+    private JSONObject handle(JSONObject request){
+        String method = request.optString("method");
+        String database = request.optString("database", null);
+        String collection = request.optString("collection", null);
+        String identifier = request.optString("identifier", null);
+
+        if (method.equals("batch")) {
+            if (!batching || !request.has("requests"))
+                return failure("Invalid method.");
+
+            JSONArray requests = request.getJSONArray("requests");
+            // Every request is applied even if others fail, the kode of the batch only tells whether all of them succeeded.
+            JSONArray replies = new JSONArray();
+            boolean failed = false;
+            for (int i = 0; i < requests.length(); i++) {
+                JSONObject reply = handle(requests.getJSONObject(i));
+                failed |= reply.getInt("kode") != 1;
+                replies.put(reply);
+            }
+
+            return new JSONObject().put("kode", failed ? 0 : 1).put("response", replies);
+        }
+
+        if (database == null)
+            return failure("The request is missing the database.");
+
+        switch (method) {
+            case "aggregate":
+                return success((collection == null ? store.aggregate(database) : store.aggregate(database, collection)).toString());
+            case "drop":
+                return (collection == null ? store.drop(database) : store.drop(database, collection)) ?
+                        success("The database or collection has been dropped.") : failure("The database or collection does not exist.");
+        }
+
+        if (collection == null || identifier == null)
+            return failure("The request is missing the collection or identifier.");
+
+        switch (method) {
+            case "get":
+                return document(store.get(database, collection, identifier));
+            case "add":
+                Object value = request.opt("value");
+                if (value == null)
+                    return failure("The request is missing the value.");
+
+                store.put(database, collection, identifier, value.toString());
+                return success(value.toString());
+            case "update":
+                if (!request.has("key") || !request.has("value"))
+                    return failure("The request is missing the key or value.");
+
+                Map<String, Object> fields = fields(request.get("key"), request.get("value"));
+                if (fields == null)
+                    return failure("The keys and values of the request do not match.");
+
+                return document(store.update(database, collection, identifier, fields));
+            case "delete":
+                if (!request.has("key"))
+                    return store.delete(database, collection, identifier) ?
+                            success("The file has been deleted.") : failure("The file does not exist.");
+
+                return document(store.remove(database, collection, identifier, keys(request.get("key"))));
+            case "revert":
+                return document(store.revert(database, collection, identifier));
+            default:
+                return failure("Invalid method.");
+        }
+    }
+
+    private static Map<String, Object> fields(Object key, Object value){
+        if (!(key instanceof JSONArray))
+            return Collections.singletonMap(key.toString(), value);
+
+        if (!(value instanceof JSONArray) || ((JSONArray) key).length() != ((JSONArray) value).length())
+            return null;
+
+        JSONArray keys = (JSONArray) key;
+        JSONArray values = (JSONArray) value;
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length(); i++) {
+            fields.put(keys.getString(i), values.get(i));
+        }
+
+        return fields;
+    }
+
+    private static List<String> keys(Object key){
+        if (!(key instanceof JSONArray))
+            return Collections.singletonList(key.toString());
+
+        JSONArray keys = (JSONArray) key;
+        return IntStream.range(0, keys.length()).mapToObj(keys::getString).collect(Collectors.toList());
+    }
+
+    private static JSONObject document(String document){
+        return document == null ? failure("The file does not exist.") : success(document);
+    }
+
+    private static JSONObject success(Object response){
+        return new JSONObject().put("kode", 1).put("response", response);
+    }
+
+    private static JSONObject failure(String response){
+        return new JSONObject().put("kode", 0).put("response", response);
+    }
+
+}
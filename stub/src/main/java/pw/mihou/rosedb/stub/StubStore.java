@@ -0,0 +1,202 @@
+package pw.mihou.rosedb.stub;
+
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The in-memory databases of the stub server, every document is kept as the raw string the
+ * driver sent along with its previous version for reverts. Every method is safe to call from
+ * multiple threads, which allows tests to seed and inspect the store while the server runs.
+ */
+public class StubStore {
+
+    private final Map<String, Map<String, Map<String, String>>> databases = new ConcurrentHashMap<>();
+    private final Map<String, String> history = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a document.
+     * @param database the database.
+     * @param collection the collection.
+     * @param identifier the identifier of the document.
+     * @return the document, null if it does not exist.
+     */
+    public String get(String database, String collection, String identifier){
+        Map<String, String> documents = documents(database, collection);
+        return documents == null ? null : documents.get(identifier);
+    }
+
+    /**
+     * Adds or replaces a document.
+     * @param database the database.
+     * @param collection the collection.
+     * @param identifier the identifier of the document.
+     * @param document the document.
+     */
+    public void put(String database, String collection, String identifier, String document){
+        databases.computeIfAbsent(database, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(collection, key -> new ConcurrentHashMap<>())
+                .compute(identifier, (key, previous) -> {
+                    remember(database, collection, identifier, previous);
+                    return document;
+                });
+    }
+
+    /**
+     * Sets the fields of a document.
+     * @param database the database.
+     * @param collection the collection.
+     * @param identifier the identifier of the document.
+     * @param fields the fields and their new values.
+     * @return the updated document, null if it does not exist.
+     */
+    public String update(String database, String collection, String identifier, Map<String, Object> fields){
+        Map<String, String> documents = documents(database, collection);
+        if (documents == null)
+            return null;
+
+        return documents.computeIfPresent(identifier, (key, previous) -> {
+            remember(database, collection, identifier, previous);
+            JSONObject document = new JSONObject(previous);
+            fields.forEach(document::put);
+            return document.toString();
+        });
+    }
+
+    /**
+     * Removes fields of a document.
+     * @param database the database.
+     * @param collection the collection.
+     * @param identifier the identifier of the document.
+     * @param keys the fields to remove.
+     * @return the updated document, null if it does not exist.
+     */
+    public String remove(String database, String collection, String identifier, Collection<String> keys){
+        Map<String, String> documents = documents(database, collection);
+        if (documents == null)
+            return null;
+
+        return documents.computeIfPresent(identifier, (key, previous) -> {
+            remember(database, collection, identifier, previous);
+            JSONObject document = new JSONObject(previous);
+            keys.forEach(document::remove);
+            return document.toString();
+        });
+    }
+
+    /**
+     * Deletes a document.
+     * @param database the database.
+     * @param collection the collection.
+     * @param identifier the identifier of the document.
+     * @return whether the document existed.
+     */
+    public boolean delete(String database, String collection, String identifier){
+        Map<String, String> documents = documents(database, collection);
+        if (documents == null)
+            return false;
+
+        String previous = documents.remove(identifier);
+        remember(database, collection, identifier, previous);
+        return previous != null;
+    }
+
+    /**
+     * Swaps a document with its previous version.
+     * @param database the database.
+     * @param collection the collection.
+     * @param identifier the identifier of the document.
+     * @return the reverted document, null if the document has no previous version.
+     */
+    public String revert(String database, String collection, String identifier){
+        String previous = history.remove(key(database, collection, identifier));
+        if (previous == null)
+            return null;
+
+        put(database, collection, identifier, previous);
+        return previous;
+    }
+
+    /**
+     * Drops a collection.
+     * @param database the database.
+     * @param collection the collection.
+     * @return whether the collection existed.
+     */
+    public boolean drop(String database, String collection){
+        Map<String, Map<String, String>> collections = databases.get(database);
+        return collections != null && collections.remove(collection) != null;
+    }
+
+    /**
+     * Drops a database.
+     * @param database the database.
+     * @return whether the database existed.
+     */
+    public boolean drop(String database){
+        return databases.remove(database) != null;
+    }
+
+    /**
+     * Aggregates a collection the same way as RoseDB, which is the collection
+     * mapped to an object of every identifier and its document.
+     * @param database the database.
+     * @param collection the collection.
+     * @return the aggregation.
+     */
+    public JSONObject aggregate(String database, String collection){
+        JSONObject documents = new JSONObject();
+        Map<String, String> items = documents(database, collection);
+        if (items != null)
+            items.forEach(documents::put);
+
+        return new JSONObject().put(collection, documents);
+    }
+
+    /**
+     * Aggregates a database the same way as RoseDB, which is the database
+     * mapped to the aggregation of every collection.
+     * @param database the database.
+     * @return the aggregation.
+     */
+    public JSONObject aggregate(String database){
+        JSONObject collections = new JSONObject();
+        databases.getOrDefault(database, Map.of()).keySet()
+                .forEach(collection -> collections.put(collection, aggregate(database, collection).get(collection)));
+
+        return new JSONObject().put(database, collections);
+    }
+
+    /**
+     * Gets the amount of documents in every database.
+     * @return the amount of documents.
+     */
+    public int size(){
+        return databases.values().stream().flatMap(collections -> collections.values().stream()).mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Removes every database and the history of every document.
+     */
+    public void clear(){
+        databases.clear();
+        history.clear();
+    }
+
+    private Map<String, String> documents(String database, String collection){
+        Map<String, Map<String, String>> collections = databases.get(database);
+        return collections == null ? null : collections.get(collection);
+    }
+
+    private void remember(String database, String collection, String identifier, String previous){
+        if (previous != null)
+            history.put(key(database, collection, identifier), previous);
+    }
+
+    private static String key(String database, String collection, String identifier){
+        return database + '\u0000' + collection + '\u0000' + identifier;
+    }
+
+}
@@ -0,0 +1,211 @@
+package pw.mihou.rosedb.stub;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.WebSocketListener;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.PingFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.Handshakedata;
+import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.handshake.ServerHandshakeBuilder;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwards every event of a connection to the server except for write demands, which are written
+ * to the socket right away on the thread that sends the frame.
+ *
+ * <p>The server otherwise hands every frame to its selector, which resets the interest of the
+ * connection to reads once it has written everything it found. A frame that is queued by another
+ * thread right between those two steps loses its write demand and stays in the buffer until the
+ * connection sends something else, which is how delayed replies used to get stuck.</p>
+ *
+ * <p>Once the socket of a connection cannot take any more, the rest of its queue is handed to the
+ * selector which writes it as soon as the client has read enough. The selector writes the queue
+ * without any lock, so the connection stays with the selector until its queue is empty and the
+ * selector has stopped writing, meanwhile the demand is renewed every millisecond in case the
+ * selector dropped it.</p>
+ *
+ * <p>This relies on the internals of Java-WebSocket 1.5.1, namely the public {@code outQueue} of
+ * {@link WebSocketImpl} and how the selector writes it, and has to be checked again whenever the
+ * version in the pom changes.</p>
+ */
+class WriteThroughListener implements WebSocketListener {
+
+    private static final long HANDOFF_CHECK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final WebSocketServer server;
+    private final ScheduledExecutorService scheduler;
+    private final Set<WebSocketImpl> handedOff = ConcurrentHashMap.newKeySet();
+
+    WriteThroughListener(WebSocketServer server, ScheduledExecutorService scheduler){
+        this.server = server;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void onWriteDemand(WebSocket webSocket) {
+        WebSocketImpl connection = (WebSocketImpl) webSocket;
+        ByteChannel channel = connection.getChannel();
+        if (channel == null) {
+            server.onWriteDemand(connection);
+            return;
+        }
+
+        // The queue is only locked here, the locks of the connection are left alone to avoid deadlocking with closes.
+        synchronized (connection.outQueue) {
+            if (!handedOff.contains(connection)) {
+                try {
+                    ByteBuffer buffer;
+                    while ((buffer = connection.outQueue.peek()) != null) {
+                        channel.write(buffer);
+                        if (buffer.hasRemaining()) {
+                            // The socket buffer is full, the selector writes the rest once the client has read some of it.
+                            handOff(connection);
+                            break;
+                        }
+
+                        connection.outQueue.poll();
+                    }
+                } catch (IOException e) {
+                    // The selector notices the broken connection on its next read and closes it.
+                    connection.outQueue.clear();
+                    return;
+                }
+
+                // The selector closes the connection once there is nothing left to write after a closing handshake.
+                if (!handedOff.contains(connection) && !connection.isFlushAndClose())
+                    return;
+            }
+        }
+
+        server.onWriteDemand(connection);
+    }
+
+    /**
+     * Leaves the queue of the connection to the selector until it has written all of it.
+     * @param connection the connection, its queue must be locked.
+     */
+    private void handOff(WebSocketImpl connection){
+        handedOff.add(connection);
+        check(connection);
+    }
+
+    /**
+     * Takes the connection back from the selector once its queue is empty and the selector no longer
+     * wants to write to it, and renews the demand of the selector otherwise.
+     * @param connection the connection.
+     */
+    private void check(WebSocketImpl connection){
+        synchronized (connection.outQueue) {
+            try {
+                if (!connection.isOpen() || (connection.outQueue.isEmpty()
+                        && (connection.getSelectionKey().interestOps() & SelectionKey.OP_WRITE) == 0)) {
+                    handedOff.remove(connection);
+                    return;
+                }
+            } catch (CancelledKeyException e) {
+                handedOff.remove(connection);
+                return;
+            }
+        }
+
+        server.onWriteDemand(connection);
+        try {
+            scheduler.schedule(() -> check(connection), HANDOFF_CHECK, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // The server is shutting down and closes the connection along with it.
+            handedOff.remove(connection);
+        }
+    }
+
+    @Override
+    public ServerHandshakeBuilder onWebsocketHandshakeReceivedAsServer(WebSocket connection, Draft draft, ClientHandshake request) throws InvalidDataException {
+        return server.onWebsocketHandshakeReceivedAsServer(connection, draft, request);
+    }
+
+    @Override
+    public void onWebsocketHandshakeReceivedAsClient(WebSocket connection, ClientHandshake request, ServerHandshake response) throws InvalidDataException {
+        server.onWebsocketHandshakeReceivedAsClient(connection, request, response);
+    }
+
+    @Override
+    public void onWebsocketHandshakeSentAsClient(WebSocket connection, ClientHandshake request) throws InvalidDataException {
+        server.onWebsocketHandshakeSentAsClient(connection, request);
+    }
+
+    @Override
+    public void onWebsocketMessage(WebSocket connection, String message) {
+        server.onWebsocketMessage(connection, message);
+    }
+
+    @Override
+    public void onWebsocketMessage(WebSocket connection, ByteBuffer message) {
+        server.onWebsocketMessage(connection, message);
+    }
+
+    @Override
+    public void onWebsocketOpen(WebSocket connection, Handshakedata handshake) {
+        server.onWebsocketOpen(connection, handshake);
+    }
+
+    @Override
+    public void onWebsocketClose(WebSocket connection, int code, String reason, boolean remote) {
+        server.onWebsocketClose(connection, code, reason, remote);
+    }
+
+    @Override
+    public void onWebsocketClosing(WebSocket connection, int code, String reason, boolean remote) {
+        server.onWebsocketClosing(connection, code, reason, remote);
+    }
+
+    @Override
+    public void onWebsocketCloseInitiated(WebSocket connection, int code, String reason) {
+        server.onWebsocketCloseInitiated(connection, code, reason);
+    }
+
+    @Override
+    public void onWebsocketError(WebSocket connection, Exception exception) {
+        server.onWebsocketError(connection, exception);
+    }
+
+    @Override
+    public void onWebsocketPing(WebSocket connection, Framedata frame) {
+        server.onWebsocketPing(connection, frame);
+    }
+
+    @Override
+    public PingFrame onPreparePing(WebSocket connection) {
+        return server.onPreparePing(connection);
+    }
+
+    @Override
+    public void onWebsocketPong(WebSocket connection, Framedata frame) {
+        server.onWebsocketPong(connection, frame);
+    }
+
+    @Override
+    public InetSocketAddress getLocalSocketAddress(WebSocket connection) {
+        return server.getLocalSocketAddress(connection);
+    }
+
+    @Override
+    public InetSocketAddress getRemoteSocketAddress(WebSocket connection) {
+        return server.getRemoteSocketAddress(connection);
+    }
+
+}
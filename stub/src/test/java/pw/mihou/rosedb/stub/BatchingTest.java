@@ -0,0 +1,134 @@
+package pw.mihou.rosedb.stub;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pw.mihou.rosedb.RoseBuilder;
+import pw.mihou.rosedb.RoseDriver;
+import pw.mihou.rosedb.exceptions.RequestTimeoutException;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchingTest {
+
+    private final List<RoseDriver> drivers = new ArrayList<>();
+    private RoseStubServer server;
+    private int port;
+
+    @BeforeEach
+    void start() throws InterruptedException {
+        server = new RoseStubServer();
+        port = server.startAndWait();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        drivers.forEach(RoseDriver::forceShutdown);
+        server.shutdown();
+    }
+
+    private RoseDriver connect(RoseBuilder builder) throws Exception {
+        RoseDriver driver = builder.build("127.0.0.1", port, "authentication");
+        drivers.add(driver);
+        return driver;
+    }
+
+    @Test
+    void coalescesConcurrentWritesIntoBatches() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder().setAutoBatching(50, TimeUnit.MILLISECONDS, 64));
+
+        List<CompletableFuture<RosePayload>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(driver.add("database", "collection", "item-" + i, new JSONObject().put("n", i)));
+        }
+
+        for (CompletableFuture<RosePayload> future : futures) {
+            assertEquals(1, future.get(10, TimeUnit.SECONDS).getKode());
+        }
+
+        assertEquals(1, server.getRequests());
+        for (int i = 0; i < 32; i++) {
+            assertEquals(i, new JSONObject(server.getStore().get("database", "collection", "item-" + i)).getInt("n"));
+        }
+    }
+
+    @Test
+    void pipelinesBatchesOnceTheServerRejectsTheMethod() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.setBatching(false);
+
+        List<RosePayload> payloads = driver.batch()
+                .add("database", "collection", "first", new JSONObject().put("n", 1))
+                .add("database", "collection", "second", new JSONObject().put("n", 2))
+                .execute().get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1, 1), payloads.stream().map(RosePayload::getKode).collect(Collectors.toList()));
+        assertEquals(3, server.getRequests());
+
+        driver.batch()
+                .get("database", "collection", "first")
+                .get("database", "collection", "second")
+                .execute().get(10, TimeUnit.SECONDS);
+        assertEquals(5, server.getRequests());
+    }
+
+    @Test
+    void stopsBatchingWithoutResendingOnceTheServerIgnoresTheMethod() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder().setRequestTimeout(200, TimeUnit.MILLISECONDS));
+        server.setIgnoredMethods("batch");
+
+        CompletableFuture<List<RosePayload>> ignored = driver.batch()
+                .add("database", "collection", "first", new JSONObject().put("n", 1))
+                .add("database", "collection", "second", new JSONObject().put("n", 2))
+                .execute();
+
+        Throwable failure = assertThrows(ExecutionException.class, () -> ignored.get(10, TimeUnit.SECONDS)).getCause();
+        assertInstanceOf(RequestTimeoutException.class, failure);
+        assertEquals(1, server.getRequests());
+        assertNull(server.getStore().get("database", "collection", "first"));
+
+        driver.batch()
+                .add("database", "collection", "first", new JSONObject().put("n", 1))
+                .add("database", "collection", "second", new JSONObject().put("n", 2))
+                .execute().get(10, TimeUnit.SECONDS);
+        assertEquals(3, server.getRequests());
+        assertNotNull(server.getStore().get("database", "collection", "second"));
+    }
+
+    @Test
+    void neverResendsBatchesThatPartlyFailed() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.getStore().put("database", "collection", "first", "{\"n\":1}");
+
+        List<RosePayload> payloads = driver.batch()
+                .remove("database", "collection", "first")
+                .remove("database", "collection", "missing")
+                .add("database", "collection", "second", new JSONObject().put("n", 2))
+                .execute().get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1, 0, 1), payloads.stream().map(RosePayload::getKode).collect(Collectors.toList()));
+        assertEquals(1, server.getRequests());
+        assertNull(server.getStore().get("database", "collection", "first"));
+        assertNotNull(server.getStore().get("database", "collection", "second"));
+
+        driver.batch()
+                .get("database", "collection", "second")
+                .get("database", "collection", "missing")
+                .execute().get(10, TimeUnit.SECONDS);
+        assertEquals(2, server.getRequests());
+    }
+
+}
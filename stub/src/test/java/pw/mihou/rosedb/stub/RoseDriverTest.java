@@ -0,0 +1,223 @@
+package pw.mihou.rosedb.stub;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pw.mihou.rosedb.RoseBuilder;
+import pw.mihou.rosedb.RoseDriver;
+import pw.mihou.rosedb.enums.RejectionPolicy;
+import pw.mihou.rosedb.enums.ReplayPolicy;
+import pw.mihou.rosedb.exceptions.FailedConnectionException;
+import pw.mihou.rosedb.exceptions.RejectedRequestException;
+import pw.mihou.rosedb.exceptions.RequestTimeoutException;
+import pw.mihou.rosedb.payloads.RosePayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoseDriverTest {
+
+    private final List<RoseDriver> drivers = new ArrayList<>();
+    private RoseStubServer server;
+    private int port;
+
+    @BeforeEach
+    void start() throws InterruptedException {
+        server = new RoseStubServer();
+        port = server.startAndWait();
+        for (int i = 0; i < 100; i++) {
+            server.getStore().put("database", "collection", "item-" + i, "{\"n\":" + i + "}");
+        }
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        drivers.forEach(RoseDriver::forceShutdown);
+        server.shutdown();
+    }
+
+    private RoseDriver connect(RoseBuilder builder) throws Exception {
+        RoseDriver driver = builder.build("127.0.0.1", port, "authentication");
+        drivers.add(driver);
+        return driver;
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(Future<?> future){
+        return assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS)).getCause();
+    }
+
+    private static int number(RosePayload payload){
+        return payload.asJSONObject().getInt("n");
+    }
+
+    @Test
+    void correlatesRepliesThatArriveOutOfOrder() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.setJitter(5, TimeUnit.MILLISECONDS);
+
+        List<CompletableFuture<RosePayload>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(driver.get("database", "collection", "item-" + i));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, number(await(futures.get(i))));
+        }
+    }
+
+    @Test
+    void replaysReadsOnceTheConnectionIsBack() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.setLatency(200, TimeUnit.MILLISECONDS);
+
+        List<CompletableFuture<RosePayload>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(driver.get("database", "collection", "item-" + i));
+        }
+
+        Thread.sleep(50);
+        server.disconnectAll();
+        server.setLatency(0, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, number(await(futures.get(i))));
+        }
+
+        assertEquals(20, server.getRequests());
+    }
+
+    @Test
+    void failsRequestsThatCannotBeReplayed() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder().setReplayPolicy(ReplayPolicy.NONE));
+        server.setLatency(200, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<RosePayload> future = driver.get("database", "collection", "item-0");
+        Thread.sleep(50);
+        server.disconnectAll();
+
+        assertInstanceOf(FailedConnectionException.class, failure(future));
+    }
+
+    @Test
+    void abortsRequestsOnceTheQueueIsFull() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder()
+                .setMaxInFlight(1)
+                .setQueueSize(1)
+                .setRejectionPolicy(RejectionPolicy.ABORT));
+        server.setLatency(200, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<RosePayload> inFlight = driver.get("database", "collection", "item-0");
+        CompletableFuture<RosePayload> queued = driver.get("database", "collection", "item-1");
+        CompletableFuture<RosePayload> rejected = driver.get("database", "collection", "item-2");
+
+        assertInstanceOf(RejectedRequestException.class, failure(rejected));
+        assertEquals(0, number(await(inFlight)));
+        assertEquals(1, number(await(queued)));
+    }
+
+    @Test
+    void blocksCallersOnceTheQueueIsFull() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder()
+                .setMaxInFlight(1)
+                .setQueueSize(1)
+                .setRejectionPolicy(RejectionPolicy.BLOCK));
+        server.setLatency(200, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<RosePayload> inFlight = driver.get("database", "collection", "item-0");
+        CompletableFuture<RosePayload> queued = driver.get("database", "collection", "item-1");
+
+        long start = System.nanoTime();
+        CompletableFuture<RosePayload> blocked = driver.get("database", "collection", "item-2");
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertEquals(0, number(await(inFlight)));
+        assertEquals(1, number(await(queued)));
+        assertEquals(2, number(await(blocked)));
+    }
+
+    @Test
+    void failsRequestsWhoseDeadlineHasPassed() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.setDropRate(1);
+
+        long start = System.nanoTime();
+        CompletableFuture<RosePayload> future = driver.withTimeout(100, TimeUnit.MILLISECONDS).get("database", "collection", "item-0");
+
+        assertInstanceOf(RequestTimeoutException.class, failure(future));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void pausesTheDeadlineWhileTheServerIsDown() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder().setQueueTimeout(10, TimeUnit.SECONDS));
+        server.shutdown();
+        Thread.sleep(200);
+
+        CompletableFuture<RosePayload> future = driver.withTimeout(100, TimeUnit.MILLISECONDS).get("database", "collection", "item-0");
+        Thread.sleep(500);
+
+        server = new RoseStubServer(port);
+        server.startAndWait();
+        server.getStore().put("database", "collection", "item-0", "{\"n\":0}");
+
+        assertEquals(0, number(await(future)));
+    }
+
+    @Test
+    void coalescesConcurrentReadsOfTheSameItem() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.setLatency(100, TimeUnit.MILLISECONDS);
+
+        List<CompletableFuture<RosePayload>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(driver.get("database", "collection", "item-7"));
+        }
+
+        for (CompletableFuture<RosePayload> future : futures) {
+            assertEquals(7, number(await(future)));
+        }
+
+        assertEquals(1, server.getRequests());
+    }
+
+    @Test
+    void readsAgainOnceTheSharedReadRunsOutOfTime() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder());
+        server.setLatency(200, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<RosePayload> hasty = driver.withTimeout(50, TimeUnit.MILLISECONDS).get("database", "collection", "item-5");
+        CompletableFuture<RosePayload> patient = driver.get("database", "collection", "item-5");
+
+        assertInstanceOf(RequestTimeoutException.class, failure(hasty));
+        assertEquals(5, number(await(patient)));
+        assertEquals(2, server.getRequests());
+    }
+
+    @Test
+    void invalidatesCachedItemsOnWrites() throws Exception {
+        RoseDriver driver = connect(new RoseBuilder().setCache(100, 1, TimeUnit.MINUTES));
+
+        assertEquals(3, number(await(driver.get("database", "collection", "item-3"))));
+        assertEquals(3, number(await(driver.get("database", "collection", "item-3"))));
+        assertEquals(1, server.getRequests());
+        assertEquals(1, driver.getCacheStatistics().getHits());
+
+        await(driver.update("database", "collection", "item-3", "n", 30));
+        assertEquals(30, number(await(driver.get("database", "collection", "item-3"))));
+        assertEquals(3, server.getRequests());
+    }
+
+}